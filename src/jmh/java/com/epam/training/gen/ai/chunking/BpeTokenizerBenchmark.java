@@ -0,0 +1,95 @@
+package com.epam.training.gen.ai.chunking;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of the {@link BpeTokenizer} counting, encoding and decoding a text, with the
+ * {@code cl100k_base} vocabulary bundled by the build. Besides the operations per second, each benchmark reports the
+ * {@code bytes} of UTF-8 text it processed per second in its {@link Bytes} counter.
+ * <p>
+ * The text path is relative to the project directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BpeTokenizerBenchmark {
+
+    @Param({"tokenizers/cl100k_base.tiktoken"})
+    private String vocabulary;
+
+    @Param({"README.md"})
+    private String text;
+
+    private BpeTokenizer tokenizer;
+    private String content;
+    private int size;
+    private int[] tokens;
+
+    /**
+     * Counts the bytes of text processed by a thread.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Bytes {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        try (InputStream input = BpeTokenizer.class.getClassLoader().getResourceAsStream(vocabulary)) {
+            if (input == null) {
+                throw new IllegalStateException("Tokenizer vocabulary " + vocabulary
+                        + " not found in the classpath, build with Maven to bundle it");
+            }
+            tokenizer = BpeTokenizer.load(input);
+        }
+        content = Files.readString(Path.of(text));
+        size = content.getBytes(StandardCharsets.UTF_8).length;
+        tokens = tokenizer.encode(content);
+    }
+
+    @Benchmark
+    public int count(Bytes bytes) {
+        bytes.bytes += size;
+        return tokenizer.count(content);
+    }
+
+    @Benchmark
+    public int[] encode(Bytes bytes) {
+        bytes.bytes += size;
+        return tokenizer.encode(content);
+    }
+
+    @Benchmark
+    public String decode(Bytes bytes) {
+        bytes.bytes += size;
+        return tokenizer.decode(tokens);
+    }
+}
@@ -0,0 +1,73 @@
+package com.epam.training.gen.ai.search;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the scalar and the Vector API {@link SimilarityKernel} scoring a query against a page of re-ranking
+ * candidates. The Vector API kernel needs {@code --add-modules jdk.incubator.vector}, which the {@code jmh} profile
+ * passes to the benchmark JVM.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimilarityKernelBenchmark {
+    private static final int CANDIDATES = 100;
+
+    @Param({"scalar", "vector"})
+    private String kernel;
+
+    @Param({"384", "1536", "3072"})
+    private int dimension;
+
+    private SimilarityKernel similarityKernel;
+    private float[] query;
+    private float[][] candidates;
+
+    @Setup
+    public void setUp() {
+        similarityKernel = "scalar".equals(kernel) ? new ScalarSimilarityKernel() : SimilarityKernel.create();
+        if (!"scalar".equals(kernel) && similarityKernel instanceof ScalarSimilarityKernel) {
+            throw new IllegalStateException("The Vector API kernel needs --add-modules jdk.incubator.vector");
+        }
+
+        var random = new Random(42);
+        query = randomVector(random);
+        candidates = new float[CANDIDATES][];
+        for (int i = 0; i < CANDIDATES; i++) {
+            candidates[i] = randomVector(random);
+        }
+    }
+
+    @Benchmark
+    public float cosine() {
+        float sum = 0;
+        for (float[] candidate : candidates) {
+            sum += similarityKernel.cosine(query, candidate);
+        }
+        return sum;
+    }
+
+    private float[] randomVector(Random random) {
+        var vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = random.nextFloat() * 2 - 1;
+        }
+        return vector;
+    }
+}
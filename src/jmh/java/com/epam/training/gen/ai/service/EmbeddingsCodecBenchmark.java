@@ -0,0 +1,98 @@
+package com.epam.training.gen.ai.service;
+
+import com.azure.ai.openai.models.EmbeddingItem;
+import com.azure.ai.openai.models.Embeddings;
+import com.azure.core.util.BinaryData;
+import com.azure.json.JsonProviders;
+import com.azure.json.JsonReader;
+import com.google.common.primitives.Floats;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the time and, with {@code -prof gc}, the allocation of decoding an embeddings response: the
+ * {@code base64} encoding and the default float list decoded by {@link EmbeddingsCodec}, and the float list parsed
+ * into the SDK models and copied into {@code float[]} as it was before the codec.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmbeddingsCodecBenchmark {
+
+    @Param({"1", "16"})
+    private int vectors;
+
+    @Param({"1536"})
+    private int dimension;
+
+    private BinaryData base64Response;
+    private BinaryData floatResponse;
+
+    @Setup
+    public void setUp() {
+        var random = new Random(42);
+        var base64 = new StringBuilder("{\"object\":\"list\",\"data\":[");
+        var floats = new StringBuilder("{\"object\":\"list\",\"data\":[");
+        for (int i = 0; i < vectors; i++) {
+            var bytes = ByteBuffer.allocate(dimension * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            var values = new StringBuilder();
+            for (int j = 0; j < dimension; j++) {
+                float value = random.nextFloat() * 2 - 1;
+                bytes.putFloat(value);
+                values.append(j == 0 ? "" : ",").append(value);
+            }
+            String separator = i == 0 ? "" : ",";
+            base64.append(separator).append(item(i, '"' + Base64.getEncoder().encodeToString(bytes.array()) + '"'));
+            floats.append(separator).append(item(i, "[" + values + "]"));
+        }
+        String usage = "],\"model\":\"text-embedding-ada-002\",\"usage\":{\"prompt_tokens\":8,\"total_tokens\":8}}";
+        base64Response = BinaryData.fromString(base64.append(usage).toString());
+        floatResponse = BinaryData.fromString(floats.append(usage).toString());
+    }
+
+    @Benchmark
+    public List<float[]> codecBase64() {
+        return EmbeddingsCodec.decodeResponse(base64Response, vectors);
+    }
+
+    @Benchmark
+    public List<float[]> codecFloatList() {
+        return EmbeddingsCodec.decodeResponse(floatResponse, vectors);
+    }
+
+    @Benchmark
+    public List<float[]> sdkFloatList() throws IOException {
+        try (JsonReader reader = JsonProviders.createReader(floatResponse.toBytes())) {
+            var result = new ArrayList<float[]>(vectors);
+            for (EmbeddingItem item : Embeddings.fromJson(reader).getData()) {
+                result.add(Floats.toArray(item.getEmbedding()));
+            }
+            return result;
+        }
+    }
+
+    private static String item(int index, String embedding) {
+        return "{\"object\":\"embedding\",\"index\":" + index + ",\"embedding\":" + embedding + "}";
+    }
+}
@@ -0,0 +1,116 @@
+package com.epam.training.gen.ai.cache;
+
+import com.epam.training.gen.ai.configuration.ClientOpenAiProperties;
+import com.epam.training.gen.ai.configuration.CompletionCacheProperties;
+import com.epam.training.gen.ai.configuration.GenAiSettings;
+import com.epam.training.gen.ai.util.TextDigest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Exact-match cache for the prompt responses.
+ * <p>
+ * Responses are keyed by the model, the SHA-256 hash of the normalized prompt and the temperature, max tokens and
+ * frequency penalty of the {@link GenAiSettings}. The cache is only used when the temperature is low enough for the
+ * same prompt to get the same response. Concurrent requests for the same key share a single completion, and the
+ * entries are evicted by age and, beyond the size limit, by least recent use.
+ */
+@Slf4j
+@Component
+public class CompletionCache {
+    private final boolean enabled;
+    private final String settings;
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+    private final Map<String, Mono<String>> inFlight = new ConcurrentHashMap<>();
+
+    public CompletionCache(ClientOpenAiProperties clientOpenAiProperties) {
+        CompletionCacheProperties properties = clientOpenAiProperties.application().completionCache();
+        GenAiSettings genAi = clientOpenAiProperties.genAi();
+        this.enabled = properties.enabled() && genAi.temperature() <= properties.maxTemperature();
+        if (properties.enabled() && !enabled) {
+            log.info("Completion cache disabled, the temperature {} is above {}", genAi.temperature(),
+                    properties.maxTemperature());
+        }
+        this.settings = genAi.temperature() + "|" + genAi.maxTokens() + "|" + genAi.frequencyPenalty();
+        this.ttlMillis = properties.ttl() == null ? Long.MAX_VALUE : properties.ttl().toMillis();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > properties.maxEntries();
+            }
+        };
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the cached response of a prompt.
+     *
+     * @param model  model the prompt is sent to
+     * @param prompt the user prompt
+     * @return the cached response, null if there is none
+     */
+    public String getIfPresent(String model, String prompt) {
+        return lookup(key(model, prompt));
+    }
+
+    /**
+     * Returns the cached response of a prompt or completes it when missing. A completion already running for the
+     * same prompt is shared instead of starting another one.
+     *
+     * @param model  model the prompt is sent to
+     * @param prompt the user prompt
+     * @param loader requests the completion to Azure OpenAI on a miss
+     * @return a {@link Mono} with the response
+     */
+    public Mono<String> get(String model, String prompt, Supplier<Mono<String>> loader) {
+        String key = key(model, prompt);
+        String cached = lookup(key);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return inFlight.computeIfAbsent(key, k -> loader.get()
+                .doOnNext(response -> put(k, response))
+                .doFinally(signal -> inFlight.remove(k))
+                .cache());
+    }
+
+    private String lookup(String key) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt() <= now) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.response();
+        }
+    }
+
+    private void put(String key, String response) {
+        long now = System.currentTimeMillis();
+        long expiresAt = now + ttlMillis < now ? Long.MAX_VALUE : now + ttlMillis;
+        synchronized (entries) {
+            entries.put(key, new Entry(response, expiresAt));
+        }
+    }
+
+    private String key(String model, String prompt) {
+        return model + "|" + settings + "|" + TextDigest.sha256(prompt);
+    }
+
+    private record Entry(String response, long expiresAt) {
+    }
+}
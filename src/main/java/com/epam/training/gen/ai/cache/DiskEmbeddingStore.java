@@ -0,0 +1,209 @@
+package com.epam.training.gen.ai.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Persistent tier of the embeddings cache backed by a memory-mapped, append-only file.
+ * <p>
+ * The file starts with a header (magic, version and write position) followed by records with the layout
+ * {@code [key length][key][expires at][dimension][float32 values]}. The record offsets are indexed in memory
+ * when the file is opened, so a lookup is a single read from the mapped region. Once the file is full it is
+ * recycled and starts over from the first record.
+ */
+@Slf4j
+class DiskEmbeddingStore implements Closeable {
+    private static final int MAGIC = 0x454D4243;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int WRITE_POSITION_OFFSET = 8;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final Map<String, Integer> offsets = new ConcurrentHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int writePosition;
+
+    DiskEmbeddingStore(Path path, long size) throws IOException {
+        if (size <= HEADER_SIZE || size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The disk cache size must be between " + HEADER_SIZE
+                    + " bytes and 2GB");
+        }
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+
+        this.capacity = (int) size;
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+
+        if (buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION) {
+            loadIndex();
+        } else {
+            reset();
+        }
+    }
+
+    /**
+     * Reads a vector from the file.
+     *
+     * @param key the cache key
+     * @param now current time in milliseconds
+     * @return the vector and its expiration time, or null if it is not stored or already expired
+     */
+    StoredVector get(String key, long now) {
+        lock.readLock().lock();
+        try {
+            Integer offset = offsets.get(key);
+            if (offset == null) {
+                return null;
+            }
+
+            int position = offset + Integer.BYTES + buffer.getInt(offset);
+            long expiresAt = buffer.getLong(position);
+            if (expiresAt <= now) {
+                offsets.remove(key, offset);
+                return null;
+            }
+            position += Long.BYTES;
+
+            float[] vector = new float[buffer.getInt(position)];
+            position += Integer.BYTES;
+            buffer.slice(position, vector.length * Float.BYTES).asFloatBuffer().get(vector);
+            return new StoredVector(vector, expiresAt);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Appends a vector to the file.
+     *
+     * @param key       the cache key
+     * @param vector    the vector values
+     * @param expiresAt expiration time in milliseconds
+     */
+    void put(String key, float[] vector, long expiresAt) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int recordSize = Integer.BYTES + keyBytes.length + Long.BYTES + Integer.BYTES + vector.length * Float.BYTES;
+        if (recordSize > capacity - HEADER_SIZE) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (writePosition + recordSize > capacity) {
+                log.info("Embeddings disk cache is full, recycling {} entries", offsets.size());
+                reset();
+            }
+
+            int position = writePosition;
+            buffer.putInt(position, keyBytes.length);
+            position += Integer.BYTES;
+            buffer.put(position, keyBytes);
+            position += keyBytes.length;
+            buffer.putLong(position, expiresAt);
+            position += Long.BYTES;
+            buffer.putInt(position, vector.length);
+            position += Integer.BYTES;
+            buffer.slice(position, vector.length * Float.BYTES).asFloatBuffer().put(vector);
+
+            offsets.put(key, writePosition);
+            writePosition += recordSize;
+            buffer.putLong(WRITE_POSITION_OFFSET, writePosition);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            buffer.force();
+            channel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes the records of the file. A record that is truncated or whose lengths do not fit in the file ends the
+     * index, the records after it are dropped and overwritten by the next writes.
+     */
+    private void loadIndex() {
+        long storedPosition = buffer.getLong(WRITE_POSITION_OFFSET);
+        if (storedPosition < HEADER_SIZE || storedPosition > capacity) {
+            log.warn("Embeddings disk cache has an invalid write position {}, starting empty", storedPosition);
+            reset();
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        int end = (int) storedPosition;
+        int position = HEADER_SIZE;
+        while (position < end) {
+            int recordSize = recordSize(position, end);
+            if (recordSize < 0) {
+                log.warn("Embeddings disk cache has a corrupted record at {}, dropping the {} bytes after it",
+                        position, end - position);
+                break;
+            }
+
+            int keyLength = buffer.getInt(position);
+            byte[] keyBytes = new byte[keyLength];
+            buffer.get(position + Integer.BYTES, keyBytes);
+            long expiresAt = buffer.getLong(position + Integer.BYTES + keyLength);
+            if (expiresAt > now) {
+                offsets.put(new String(keyBytes, StandardCharsets.UTF_8), position);
+            }
+            position += recordSize;
+        }
+        writePosition = position;
+        buffer.putLong(WRITE_POSITION_OFFSET, writePosition);
+        log.info("Embeddings disk cache loaded with {} entries", offsets.size());
+    }
+
+    /**
+     * Returns the size of the record at the given position, or -1 when its lengths do not fit before the end.
+     */
+    private int recordSize(int position, int end) {
+        long remaining = end - position;
+        if (remaining < Integer.BYTES) {
+            return -1;
+        }
+        long keyLength = buffer.getInt(position);
+        if (keyLength <= 0 || keyLength > remaining - Integer.BYTES - Long.BYTES - Integer.BYTES) {
+            return -1;
+        }
+        long dimension = buffer.getInt(position + Integer.BYTES + (int) keyLength + Long.BYTES);
+        long recordSize = Integer.BYTES + keyLength + Long.BYTES + Integer.BYTES + dimension * Float.BYTES;
+        return dimension < 0 || recordSize > remaining ? -1 : (int) recordSize;
+    }
+
+    private void reset() {
+        offsets.clear();
+        writePosition = HEADER_SIZE;
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putLong(WRITE_POSITION_OFFSET, writePosition);
+    }
+
+    record StoredVector(float[] vector, long expiresAt) {
+    }
+}
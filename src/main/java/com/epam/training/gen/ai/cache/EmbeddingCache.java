@@ -0,0 +1,212 @@
+package com.epam.training.gen.ai.cache;
+
+import com.epam.training.gen.ai.configuration.ClientOpenAiProperties;
+import com.epam.training.gen.ai.configuration.EmbeddingCacheProperties;
+import com.epam.training.gen.ai.model.EmbeddingCacheStats;
+import com.epam.training.gen.ai.util.TextDigest;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Content-addressed cache for the embeddings vectors.
+ * <p>
+ * Vectors are keyed by the embedding model and the SHA-256 hash of the normalized text. The first tier is an
+ * in-heap LRU that keeps the vectors as {@code float[]}; the optional second tier is a memory-mapped file that
+ * survives restarts. Concurrent misses for the same key share a single embeddings request.
+ * <p>
+ * The returned arrays are shared between callers and must not be modified.
+ */
+@Slf4j
+@Component
+public class EmbeddingCache {
+    private final EmbeddingCacheProperties properties;
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+    private final Map<String, Mono<float[]>> inFlight = new ConcurrentHashMap<>();
+    private final DiskEmbeddingStore diskStore;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public EmbeddingCache(ClientOpenAiProperties clientOpenAiProperties) throws IOException {
+        this.properties = clientOpenAiProperties.application().embeddingCache();
+        this.ttlMillis = properties.ttl() == null ? Long.MAX_VALUE : properties.ttl().toMillis();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                boolean evict = size() > properties.maxEntries();
+                if (evict) {
+                    evictions.increment();
+                }
+                return evict;
+            }
+        };
+        this.diskStore = properties.enabled() && StringUtils.isNotBlank(properties.diskPath())
+                ? new DiskEmbeddingStore(Path.of(properties.diskPath()), properties.diskSize().toBytes())
+                : null;
+    }
+
+    /**
+     * Returns the cached vector for the given text or loads it when missing.
+     *
+     * @param model  embedding model used to create the vector
+     * @param text   the text to be embedded
+     * @param loader requests the vector to Azure OpenAI on a miss
+     * @return a {@link Mono} with the vector
+     */
+    public Mono<float[]> get(String model, String text, Supplier<Mono<float[]>> loader) {
+        if (!properties.enabled()) {
+            return loader.get();
+        }
+
+        String key = key(model, text);
+        float[] cached = lookup(key);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+
+        var created = new boolean[1];
+        Mono<float[]> request = inFlight.computeIfAbsent(key, k -> {
+            created[0] = true;
+            return loader.get()
+                    .doOnNext(vector -> put(k, vector))
+                    .doFinally(signal -> inFlight.remove(k))
+                    .cache();
+        });
+        if (created[0]) {
+            misses.increment();
+        } else {
+            coalesced.increment();
+        }
+        return request;
+    }
+
+    /**
+     * Returns the cached vectors for the given texts and loads the missing ones within a single request.
+     * <p>
+     * Unlike {@link #get(String, String, Supplier)}, concurrent misses for the same text are not coalesced.
+     *
+     * @param model  embedding model used to create the vectors
+     * @param texts  the texts to be embedded
+     * @param loader requests the vectors of the missing texts to Azure OpenAI, in the same order
+     * @return a {@link Mono} with one vector per text, in the same order as the input
+     */
+    public Mono<List<float[]>> getAll(String model, List<String> texts,
+                                      Function<List<String>, Mono<List<float[]>>> loader) {
+        if (!properties.enabled()) {
+            return loader.apply(texts);
+        }
+
+        var vectors = new float[texts.size()][];
+        var keys = new String[texts.size()];
+        var missing = new ArrayList<Integer>();
+        for (int i = 0; i < texts.size(); i++) {
+            keys[i] = key(model, texts.get(i));
+            vectors[i] = lookup(keys[i]);
+            if (vectors[i] == null) {
+                missing.add(i);
+            }
+        }
+        if (missing.isEmpty()) {
+            return Mono.just(Arrays.asList(vectors));
+        }
+
+        misses.add(missing.size());
+        return loader.apply(missing.stream().map(texts::get).toList())
+                .map(loaded -> {
+                    for (int i = 0; i < missing.size(); i++) {
+                        int position = missing.get(i);
+                        vectors[position] = loaded.get(i);
+                        put(keys[position], loaded.get(i));
+                    }
+                    return Arrays.asList(vectors);
+                });
+    }
+
+    /**
+     * Returns the current cache metrics.
+     *
+     * @return the {@link EmbeddingCacheStats}
+     */
+    public EmbeddingCacheStats stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new EmbeddingCacheStats(hits.sum(), diskHits.sum(), misses.sum(), coalesced.sum(),
+                evictions.sum(), size);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (diskStore != null) {
+            diskStore.close();
+        }
+    }
+
+    private float[] lookup(String key) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt() > now) {
+                    hits.increment();
+                    return entry.vector();
+                }
+                entries.remove(key);
+            }
+        }
+
+        if (diskStore != null) {
+            DiskEmbeddingStore.StoredVector stored = diskStore.get(key, now);
+            if (stored != null) {
+                diskHits.increment();
+                synchronized (entries) {
+                    entries.put(key, new Entry(stored.vector(), stored.expiresAt()));
+                }
+                return stored.vector();
+            }
+        }
+        return null;
+    }
+
+    private void put(String key, float[] vector) {
+        long expiresAt = saturatedAdd(System.currentTimeMillis(), ttlMillis);
+        synchronized (entries) {
+            entries.put(key, new Entry(vector, expiresAt));
+        }
+        if (diskStore != null) {
+            diskStore.put(key, vector, expiresAt);
+        }
+    }
+
+    private static String key(String model, String text) {
+        return model + ":" + TextDigest.sha256(text);
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        long result = a + b;
+        return result < a ? Long.MAX_VALUE : result;
+    }
+
+    private record Entry(float[] vector, long expiresAt) {
+    }
+}
@@ -0,0 +1,92 @@
+package com.epam.training.gen.ai.cache;
+
+import com.epam.training.gen.ai.configuration.ClientOpenAiProperties;
+import com.epam.training.gen.ai.configuration.SemanticCacheProperties;
+import com.epam.training.gen.ai.util.VectorMath;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of prompt responses looked up by meaning instead of by the exact text.
+ * <p>
+ * Every response is stored with the embedding of its prompt and a partition that identifies the model and the
+ * settings used to create it. A prompt reuses the response of the most similar prompt of its partition when the
+ * cosine similarity reaches the configured threshold. The entries are evicted by age and, beyond the size limit,
+ * by least recent use. The lookup is a linear scan, which is cheaper than a completion by several orders of
+ * magnitude for the sizes this cache is meant for.
+ */
+@Component
+public class SemanticResponseCache {
+    private final SemanticCacheProperties properties;
+    private final long ttlMillis;
+    private final Map<Long, Entry> entries;
+    private long sequence;
+
+    public SemanticResponseCache(ClientOpenAiProperties clientOpenAiProperties) {
+        this.properties = clientOpenAiProperties.application().semanticCache();
+        this.ttlMillis = properties.ttl() == null ? Long.MAX_VALUE : properties.ttl().toMillis();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > properties.maxEntries();
+            }
+        };
+    }
+
+    public boolean enabled() {
+        return properties.enabled();
+    }
+
+    /**
+     * Returns the response of the most similar cached prompt.
+     *
+     * @param partition the model and settings of the prompt
+     * @param embedding the embedding of the prompt
+     * @return the cached response, null if no cached prompt is similar enough
+     */
+    public String get(String partition, float[] embedding) {
+        float[] query = VectorMath.normalize(embedding);
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Long bestKey = null;
+            float bestScore = (float) properties.similarityThreshold();
+            Iterator<Map.Entry<Long, Entry>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Long, Entry> cached = iterator.next();
+                Entry entry = cached.getValue();
+                if (entry.expiresAt() <= now) {
+                    iterator.remove();
+                } else if (entry.partition().equals(partition)) {
+                    float score = VectorMath.dot(query, entry.embedding());
+                    if (score >= bestScore) {
+                        bestScore = score;
+                        bestKey = cached.getKey();
+                    }
+                }
+            }
+            return bestKey == null ? null : entries.get(bestKey).response();
+        }
+    }
+
+    /**
+     * Stores the response of a prompt.
+     *
+     * @param partition the model and settings of the prompt
+     * @param embedding the embedding of the prompt
+     * @param response  the response to reuse
+     */
+    public void put(String partition, float[] embedding, String response) {
+        long now = System.currentTimeMillis();
+        long expiresAt = now + ttlMillis < now ? Long.MAX_VALUE : now + ttlMillis;
+        var entry = new Entry(partition, VectorMath.normalize(embedding), response, expiresAt);
+        synchronized (entries) {
+            entries.put(sequence++, entry);
+        }
+    }
+
+    private record Entry(String partition, float[] embedding, String response, long expiresAt) {
+    }
+}
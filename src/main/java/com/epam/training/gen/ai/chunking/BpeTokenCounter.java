@@ -0,0 +1,95 @@
+package com.epam.training.gen.ai.chunking;
+
+import com.epam.training.gen.ai.configuration.ClientOpenAiProperties;
+import com.epam.training.gen.ai.configuration.TokenizerProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * {@link TokenCounter} that counts the exact tokens of the OpenAI models with the {@link BpeTokenizer}.
+ * <p>
+ * The vocabulary is read once at startup from {@code application.tokenizer.vocabulary}, by default the
+ * {@code cl100k_base.tiktoken} that the build downloads into the classpath. When that property is empty,
+ * the tokens are estimated by the {@link HeuristicTokenCounter} instead, so the application still works without it.
+ * A vocabulary that is configured but cannot be found fails the startup rather than silently estimating.
+ */
+@Slf4j
+@Primary
+@Component
+public class BpeTokenCounter implements TokenCounter {
+    private final BpeTokenizer tokenizer;
+    private final HeuristicTokenCounter fallback;
+
+    public BpeTokenCounter(HeuristicTokenCounter fallback, ClientOpenAiProperties clientOpenAiProperties) {
+        this.fallback = fallback;
+        TokenizerProperties properties = clientOpenAiProperties.application().tokenizer();
+        this.tokenizer = load(properties == null ? null : properties.vocabulary());
+    }
+
+    @Override
+    public int count(CharSequence text) {
+        return tokenizer != null ? tokenizer.count(text) : fallback.count(text);
+    }
+
+    /**
+     * Whether the tokens are counted exactly, or only estimated because no vocabulary is configured.
+     */
+    public boolean exact() {
+        return tokenizer != null;
+    }
+
+    /**
+     * Encodes a text into its tokens.
+     *
+     * @param text the text
+     * @return the token ranks, in text order
+     * @throws IllegalStateException if no vocabulary is configured
+     */
+    public int[] encode(CharSequence text) {
+        return tokenizer().encode(text);
+    }
+
+    /**
+     * Decodes tokens back into text.
+     *
+     * @param tokens the token ranks
+     * @return the text
+     * @throws IllegalStateException if no vocabulary is configured
+     */
+    public String decode(int[] tokens) {
+        return tokenizer().decode(tokens);
+    }
+
+    private BpeTokenizer tokenizer() {
+        if (tokenizer == null) {
+            throw new IllegalStateException("No tokenizer vocabulary is configured");
+        }
+        return tokenizer;
+    }
+
+    private static BpeTokenizer load(Resource vocabulary) {
+        if (vocabulary == null) {
+            log.info("No tokenizer vocabulary configured, the tokens are estimated");
+            return null;
+        }
+        if (!vocabulary.exists()) {
+            throw new IllegalStateException("Tokenizer vocabulary " + vocabulary + " not found, build with Maven to "
+                    + "bundle cl100k_base.tiktoken or leave application.tokenizer.vocabulary empty to estimate tokens");
+        }
+        long start = System.nanoTime();
+        try (InputStream input = vocabulary.getInputStream()) {
+            BpeTokenizer tokenizer = BpeTokenizer.load(input);
+            log.info("Tokenizer vocabulary of {} tokens loaded in {} ms", tokenizer.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+            return tokenizer;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read the tokenizer vocabulary " + vocabulary, e);
+        }
+    }
+}
@@ -0,0 +1,451 @@
+package com.epam.training.gen.ai.chunking;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Byte pair encoding tokenizer compatible with the {@code cl100k_base} encoding of the OpenAI chat and embedding
+ * models.
+ * <p>
+ * The vocabulary is read from a {@code .tiktoken} file, one base64 encoded token and its rank per line. The text is
+ * first split into pieces as the {@code cl100k_base} pattern does, by a scanner written out by hand instead of a
+ * regular expression. Every piece is then encoded in UTF-8 and its bytes are merged pair by pair, lowest rank first,
+ * until no adjacent pair is a token. The tokens are looked up by their bytes in an open addressing table over a
+ * single array, and the buffers are kept per thread, so counting allocates nothing once warmed up. Special tokens
+ * such as {@code <|endoftext|>} are encoded as plain text.
+ * <p>
+ * Instances are immutable and can be shared between threads.
+ */
+public final class BpeTokenizer {
+    private static final int NO_RANK = Integer.MAX_VALUE;
+
+    private final byte[] bytes;
+    private final int[] offsets;
+    private final int[] ranks;
+    private final int[] slots;
+    private final int[] tokensByRank;
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    private BpeTokenizer(byte[] bytes, int[] offsets, int[] ranks) {
+        this.bytes = bytes;
+        this.offsets = offsets;
+        this.ranks = ranks;
+        int count = ranks.length;
+        this.slots = new int[Integer.highestOneBit(Math.max(count, 1) * 2) << 1];
+        int maxRank = 0;
+        for (int token = 0; token < count; token++) {
+            maxRank = Math.max(maxRank, ranks[token]);
+            int mask = slots.length - 1;
+            int slot = hash(bytes, offsets[token], offsets[token + 1]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = token + 1;
+        }
+        this.tokensByRank = new int[count == 0 ? 0 : maxRank + 1];
+        Arrays.fill(tokensByRank, -1);
+        for (int token = 0; token < count; token++) {
+            tokensByRank[ranks[token]] = token;
+        }
+    }
+
+    /**
+     * Reads a vocabulary in the {@code .tiktoken} format.
+     *
+     * @param input the vocabulary, it is not closed
+     * @return the tokenizer
+     * @throws IOException if the vocabulary cannot be read or is malformed
+     */
+    public static BpeTokenizer load(InputStream input) throws IOException {
+        var reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.US_ASCII));
+        var decoder = Base64.getDecoder();
+        byte[] bytes = new byte[1 << 20];
+        int[] offsets = new int[1 << 17];
+        int[] ranks = new int[1 << 17];
+        int count = 0;
+        int size = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            int separator = line.indexOf(' ');
+            if (separator <= 0) {
+                throw new IOException("Malformed vocabulary line " + (count + 1) + ": " + line);
+            }
+            byte[] token;
+            int rank;
+            try {
+                token = decoder.decode(line.substring(0, separator));
+                rank = Integer.parseInt(line.substring(separator + 1).trim());
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Malformed vocabulary line " + (count + 1) + ": " + line, e);
+            }
+            if (token.length == 0 || rank < 0) {
+                throw new IOException("Malformed vocabulary line " + (count + 1) + ": " + line);
+            }
+            if (size + token.length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + token.length));
+            }
+            if (count + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                ranks = Arrays.copyOf(ranks, ranks.length * 2);
+            }
+            System.arraycopy(token, 0, bytes, size, token.length);
+            offsets[count] = size;
+            ranks[count] = rank;
+            size += token.length;
+            count++;
+        }
+        offsets[count] = size;
+        return new BpeTokenizer(Arrays.copyOf(bytes, size), Arrays.copyOf(offsets, count + 1),
+                Arrays.copyOf(ranks, count));
+    }
+
+    /**
+     * @return the amount of tokens of the vocabulary
+     */
+    public int size() {
+        return ranks.length;
+    }
+
+    /**
+     * Counts the tokens of a text.
+     *
+     * @param text the text
+     * @return the amount of tokens
+     */
+    public int count(CharSequence text) {
+        Scratch buffers = scratch.get();
+        int tokens = 0;
+        int length = text.length();
+        for (int start = 0; start < length; ) {
+            int end = pieceEnd(text, start);
+            int size = buffers.utf8(text, start, end);
+            tokens += rank(buffers.bytes, 0, size) != NO_RANK ? 1 : merge(buffers, size);
+            start = end;
+        }
+        return tokens;
+    }
+
+    /**
+     * Encodes a text into the ranks of its tokens.
+     *
+     * @param text the text
+     * @return the token ranks, in text order
+     */
+    public int[] encode(CharSequence text) {
+        Scratch buffers = scratch.get();
+        int[] encoded = new int[Math.max(16, text.length() / 3)];
+        int tokens = 0;
+        int length = text.length();
+        for (int start = 0; start < length; ) {
+            int end = pieceEnd(text, start);
+            int size = buffers.utf8(text, start, end);
+            int whole = rank(buffers.bytes, 0, size);
+            int parts = whole != NO_RANK ? 1 : merge(buffers, size);
+            if (tokens + parts > encoded.length) {
+                encoded = Arrays.copyOf(encoded, Math.max(encoded.length * 2, tokens + parts));
+            }
+            if (whole != NO_RANK) {
+                encoded[tokens++] = whole;
+            } else {
+                for (int part = 0; part < parts; part++) {
+                    encoded[tokens++] = rank(buffers.bytes, buffers.starts[part], buffers.starts[part + 1]);
+                }
+            }
+            start = end;
+        }
+        return Arrays.copyOf(encoded, tokens);
+    }
+
+    /**
+     * Decodes token ranks back into text.
+     *
+     * @param tokens the token ranks
+     * @return the text, the bytes that are not valid UTF-8 are replaced
+     * @throws IllegalArgumentException if a rank is not in the vocabulary
+     */
+    public String decode(int[] tokens) {
+        int size = 0;
+        for (int rank : tokens) {
+            int token = token(rank);
+            size += offsets[token + 1] - offsets[token];
+        }
+        var decoded = new byte[size];
+        int position = 0;
+        for (int rank : tokens) {
+            int token = token(rank);
+            int tokenSize = offsets[token + 1] - offsets[token];
+            System.arraycopy(bytes, offsets[token], decoded, position, tokenSize);
+            position += tokenSize;
+        }
+        return new String(decoded, StandardCharsets.UTF_8);
+    }
+
+    private int token(int rank) {
+        int token = rank >= 0 && rank < tokensByRank.length ? tokensByRank[rank] : -1;
+        if (token < 0) {
+            throw new IllegalArgumentException("Unknown token " + rank);
+        }
+        return token;
+    }
+
+    /**
+     * Merges the bytes of a piece that is not a token by itself, as {@code tiktoken} does: the adjacent parts
+     * forming the token of lowest rank are merged until no adjacent parts form a token. The parts are left in
+     * {@code starts}.
+     *
+     * @return the amount of tokens of the piece
+     */
+    private int merge(Scratch buffers, int size) {
+        buffers.ensureParts(size);
+        byte[] piece = buffers.bytes;
+        int[] starts = buffers.starts;
+        int[] pairRanks = buffers.pairRanks;
+        int parts = size;
+        for (int i = 0; i <= size; i++) {
+            starts[i] = i;
+        }
+        for (int i = 0; i < parts - 1; i++) {
+            pairRanks[i] = rank(piece, i, i + 2);
+        }
+
+        while (parts > 1) {
+            int best = -1;
+            int bestRank = NO_RANK;
+            for (int i = 0; i < parts - 1; i++) {
+                if (pairRanks[i] < bestRank) {
+                    bestRank = pairRanks[i];
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            // the parts best and best + 1 become one, so the boundary between them goes away
+            System.arraycopy(starts, best + 2, starts, best + 1, parts - best - 1);
+            System.arraycopy(pairRanks, best + 1, pairRanks, best, parts - best - 2);
+            parts--;
+            if (best < parts - 1) {
+                pairRanks[best] = rank(piece, starts[best], starts[best + 2]);
+            }
+            if (best > 0) {
+                pairRanks[best - 1] = rank(piece, starts[best - 1], starts[best + 1]);
+            }
+        }
+        return parts;
+    }
+
+    private int rank(byte[] piece, int from, int to) {
+        int mask = slots.length - 1;
+        int length = to - from;
+        for (int slot = hash(piece, from, to) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int token = slots[slot] - 1;
+            int offset = offsets[token];
+            if (offsets[token + 1] - offset == length
+                    && Arrays.equals(bytes, offset, offset + length, piece, from, to)) {
+                return ranks[token];
+            }
+        }
+        return NO_RANK;
+    }
+
+    private static int hash(byte[] data, int from, int to) {
+        int hash = 0x811C9DC5;
+        for (int i = from; i < to; i++) {
+            hash = (hash ^ (data[i] & 0xFF)) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Finds the end of the piece starting at the given position, following the {@code cl100k_base} pattern
+     * <pre>
+     * (?i:'s|'t|'re|'ve|'m|'ll|'d)|[^\r\n\p{L}\p{N}]?\p{L}+|\p{N}{1,3}| ?[^\s\p{L}\p{N}]+[\r\n]*|\s*[\r\n]+|\s+(?!\S)|\s+
+     * </pre>
+     * whose alternatives are tried in order.
+     */
+    static int pieceEnd(CharSequence text, int start) {
+        int length = text.length();
+        int first = Character.codePointAt(text, start);
+        int second = start + Character.charCount(first);
+        int next = second < length ? Character.codePointAt(text, second) : -1;
+
+        if (first == '\'' && next >= 0) {
+            int contraction = contractionEnd(text, second);
+            if (contraction > 0) {
+                return contraction;
+            }
+        }
+        if (isLetter(first)) {
+            return skipLetters(text, second);
+        }
+        if (next >= 0 && isLetter(next) && first != '\r' && first != '\n' && !isNumber(first)) {
+            return skipLetters(text, second);
+        }
+        if (isNumber(first)) {
+            int end = second;
+            for (int digits = 1; digits < 3 && end < length; digits++) {
+                int codePoint = Character.codePointAt(text, end);
+                if (!isNumber(codePoint)) {
+                    break;
+                }
+                end += Character.charCount(codePoint);
+            }
+            return end;
+        }
+        int symbols = first == ' ' && next >= 0 && isSymbol(next) ? second : start;
+        if (isSymbol(Character.codePointAt(text, symbols))) {
+            int end = symbols;
+            while (end < length) {
+                int codePoint = Character.codePointAt(text, end);
+                if (!isSymbol(codePoint)) {
+                    break;
+                }
+                end += Character.charCount(codePoint);
+            }
+            while (end < length && (text.charAt(end) == '\r' || text.charAt(end) == '\n')) {
+                end++;
+            }
+            return end;
+        }
+
+        // whitespace
+        int end = start;
+        int lastNewline = -1;
+        int lastStart = start;
+        while (end < length) {
+            int codePoint = Character.codePointAt(text, end);
+            if (!isSpace(codePoint)) {
+                break;
+            }
+            if (codePoint == '\r' || codePoint == '\n') {
+                lastNewline = end;
+            }
+            lastStart = end;
+            end += Character.charCount(codePoint);
+        }
+        if (lastNewline >= 0) {
+            return lastNewline + 1;
+        }
+        if (end < length && lastStart > start) {
+            return lastStart;
+        }
+        return end;
+    }
+
+    private static int contractionEnd(CharSequence text, int from) {
+        char first = Character.toLowerCase(text.charAt(from));
+        if (first == 's' || first == 't' || first == 'm' || first == 'd') {
+            return from + 1;
+        }
+        if (from + 1 < text.length()) {
+            char second = Character.toLowerCase(text.charAt(from + 1));
+            if (first == 'r' && second == 'e' || first == 'v' && second == 'e' || first == 'l' && second == 'l') {
+                return from + 2;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipLetters(CharSequence text, int from) {
+        int end = from;
+        while (end < text.length()) {
+            int codePoint = Character.codePointAt(text, end);
+            if (!isLetter(codePoint)) {
+                break;
+            }
+            end += Character.charCount(codePoint);
+        }
+        return end;
+    }
+
+    private static boolean isLetter(int codePoint) {
+        return codePoint < 0x80
+                ? (codePoint | 0x20) >= 'a' && (codePoint | 0x20) <= 'z'
+                : Character.isLetter(codePoint);
+    }
+
+    private static boolean isNumber(int codePoint) {
+        if (codePoint < 0x80) {
+            return codePoint >= '0' && codePoint <= '9';
+        }
+        int type = Character.getType(codePoint);
+        return type == Character.DECIMAL_DIGIT_NUMBER || type == Character.LETTER_NUMBER
+                || type == Character.OTHER_NUMBER;
+    }
+
+    /**
+     * Whether a code point has the Unicode {@code White_Space} property, as {@code \s} in the pattern.
+     */
+    private static boolean isSpace(int codePoint) {
+        return codePoint == ' ' || codePoint >= '\t' && codePoint <= '\r' || codePoint == 0x85 || codePoint == 0xA0
+                || codePoint == 0x1680 || codePoint >= 0x2000 && codePoint <= 0x200A || codePoint == 0x2028
+                || codePoint == 0x2029 || codePoint == 0x202F || codePoint == 0x205F || codePoint == 0x3000;
+    }
+
+    private static boolean isSymbol(int codePoint) {
+        return !isSpace(codePoint) && !isLetter(codePoint) && !isNumber(codePoint);
+    }
+
+    /**
+     * Buffers of a thread: the UTF-8 bytes of the current piece, and the parts it is merged into.
+     */
+    private static final class Scratch {
+        private byte[] bytes = new byte[256];
+        private int[] starts = new int[257];
+        private int[] pairRanks = new int[256];
+
+        /**
+         * Encodes a piece of the text in UTF-8 into {@code bytes}.
+         *
+         * @return the amount of bytes
+         */
+        int utf8(CharSequence text, int from, int to) {
+            if (bytes.length < (to - from) * 3) {
+                bytes = new byte[(to - from) * 3];
+            }
+            int size = 0;
+            for (int i = from; i < to; i++) {
+                char character = text.charAt(i);
+                if (character < 0x80) {
+                    bytes[size++] = (byte) character;
+                } else if (character < 0x800) {
+                    bytes[size++] = (byte) (0xC0 | character >> 6);
+                    bytes[size++] = (byte) (0x80 | character & 0x3F);
+                } else if (Character.isHighSurrogate(character) && i + 1 < to
+                        && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(character, text.charAt(++i));
+                    bytes[size++] = (byte) (0xF0 | codePoint >> 18);
+                    bytes[size++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                    bytes[size++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                    bytes[size++] = (byte) (0x80 | codePoint & 0x3F);
+                } else if (Character.isSurrogate(character)) {
+                    // an unpaired surrogate is encoded as the replacement character, as String.getBytes does
+                    bytes[size++] = (byte) 0xEF;
+                    bytes[size++] = (byte) 0xBF;
+                    bytes[size++] = (byte) 0xBD;
+                } else {
+                    bytes[size++] = (byte) (0xE0 | character >> 12);
+                    bytes[size++] = (byte) (0x80 | character >> 6 & 0x3F);
+                    bytes[size++] = (byte) (0x80 | character & 0x3F);
+                }
+            }
+            return size;
+        }
+
+        void ensureParts(int size) {
+            if (starts.length < size + 1) {
+                starts = new int[size + 1];
+                pairRanks = new int[size];
+            }
+        }
+    }
+}
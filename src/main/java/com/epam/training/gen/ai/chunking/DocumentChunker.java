@@ -0,0 +1,273 @@
+package com.epam.training.gen.ai.chunking;
+
+import com.epam.training.gen.ai.configuration.ChunkingProperties;
+import com.epam.training.gen.ai.configuration.ClientOpenAiProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Splits documents into chunks of a bounded amount of tokens.
+ * <p>
+ * The document is read as a stream of sentences, a sentence ends with {@code .}, {@code !} or {@code ?} followed by
+ * whitespace, or with a blank line which also ends the paragraph. Chunks are made of whole sentences: a chunk is
+ * closed when the next sentence does not fit, or at the end of a paragraph once it is half full. Within a paragraph
+ * the next chunk starts with the last sentences of the previous one up to the overlap. Only sentences longer than a
+ * chunk are cut, at word boundaries. Only the sentences of the current chunk are kept in memory.
+ */
+@Component
+@RequiredArgsConstructor
+public class DocumentChunker {
+    private final TokenCounter tokenCounter;
+    private final ClientOpenAiProperties clientOpenAiProperties;
+
+    /**
+     * Splits a document into chunks. The reader is read while the chunks are requested and is not closed.
+     *
+     * @param docId  identifier of the document
+     * @param reader the document contents
+     * @return the chunks, in document order
+     */
+    public Flux<TextChunk> chunk(String docId, Reader reader) {
+        ChunkingProperties chunking = clientOpenAiProperties.application().chunking();
+        return Flux.fromIterable(() -> new ChunkIterator(docId, new SentenceReader(reader, chunking.maxTokens()),
+                chunking.maxTokens(), chunking.overlapTokens()));
+    }
+
+    /**
+     * Contiguous piece of the document that is never split across chunks, unless it is longer than a chunk.
+     */
+    private record Sentence(String text, long start, int tokens, boolean endsParagraph) {
+
+        long end() {
+            return start + text.length();
+        }
+    }
+
+    /**
+     * Reads the document one sentence at a time. The trailing whitespace belongs to the sentence, so the sentences
+     * put together are the whole document.
+     */
+    private final class SentenceReader {
+        private final Reader reader;
+        private final int maxCharacters;
+        private final StringBuilder text = new StringBuilder();
+        private final Deque<Sentence> pieces = new ArrayDeque<>();
+        private final int maxTokens;
+        private long position;
+        private int lookahead = -2;
+
+        SentenceReader(Reader reader, int maxTokens) {
+            this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader);
+            this.maxTokens = maxTokens;
+            // a sentence this long is cut at the next whitespace to keep the memory bounded
+            this.maxCharacters = Math.max(maxTokens, 1) * 16;
+        }
+
+        Sentence next() {
+            if (!pieces.isEmpty()) {
+                return pieces.poll();
+            }
+            Sentence sentence = read();
+            if (sentence == null || sentence.tokens() <= maxTokens) {
+                return sentence;
+            }
+            split(sentence);
+            return pieces.poll();
+        }
+
+        private Sentence read() {
+            text.setLength(0);
+            long start = position;
+            boolean terminal = false;
+            boolean boundary = false;
+            boolean paragraph = false;
+            int newlines = 0;
+
+            int character;
+            while ((character = nextCharacter()) >= 0) {
+                boolean whitespace = Character.isWhitespace(character);
+                if (boundary && !whitespace) {
+                    lookahead = character;
+                    break;
+                }
+                text.append((char) character);
+                position++;
+
+                if (character == '\n') {
+                    newlines++;
+                    paragraph = newlines >= 2;
+                    boundary |= paragraph;
+                } else if (!whitespace) {
+                    newlines = 0;
+                }
+                if (character == '.' || character == '!' || character == '?') {
+                    terminal = true;
+                } else if (whitespace) {
+                    boundary |= terminal || text.length() >= maxCharacters;
+                } else {
+                    terminal = false;
+                    boundary |= text.length() >= 2 * maxCharacters;
+                }
+            }
+
+            if (text.isEmpty()) {
+                return null;
+            }
+            String sentence = text.toString();
+            return new Sentence(sentence, start, tokenCounter.count(sentence), paragraph);
+        }
+
+        /**
+         * Cuts a sentence that does not fit in a chunk at word boundaries, words that do not fit either are cut
+         * in equal parts.
+         */
+        private void split(Sentence sentence) {
+            String value = sentence.text();
+            int pieceStart = 0;
+            int pieceTokens = 0;
+            int wordStart = 0;
+            while (wordStart < value.length()) {
+                int wordEnd = wordStart;
+                while (wordEnd < value.length() && !Character.isWhitespace(value.charAt(wordEnd))) {
+                    wordEnd++;
+                }
+                while (wordEnd < value.length() && Character.isWhitespace(value.charAt(wordEnd))) {
+                    wordEnd++;
+                }
+                int wordTokens = tokenCounter.count(value.subSequence(wordStart, wordEnd));
+
+                if (pieceTokens + wordTokens > maxTokens && pieceStart < wordStart) {
+                    addPiece(sentence, pieceStart, wordStart, pieceTokens, false);
+                    pieceStart = wordStart;
+                    pieceTokens = 0;
+                }
+                if (wordTokens > maxTokens) {
+                    int step = Math.max(1, (int) ((long) (wordEnd - wordStart) * maxTokens / wordTokens));
+                    for (int from = wordStart; from < wordEnd; from += step) {
+                        int to = Math.min(wordEnd, from + step);
+                        addPiece(sentence, from, to, tokenCounter.count(value.subSequence(from, to)), false);
+                    }
+                    pieceStart = wordEnd;
+                } else {
+                    pieceTokens += wordTokens;
+                }
+                wordStart = wordEnd;
+            }
+            if (pieceStart < value.length()) {
+                addPiece(sentence, pieceStart, value.length(), pieceTokens, sentence.endsParagraph());
+            }
+        }
+
+        private void addPiece(Sentence sentence, int from, int to, int tokens, boolean endsParagraph) {
+            pieces.add(new Sentence(sentence.text().substring(from, to), sentence.start() + from, tokens,
+                    endsParagraph));
+        }
+
+        private int nextCharacter() {
+            if (lookahead != -2) {
+                int character = lookahead;
+                lookahead = -2;
+                return character;
+            }
+            try {
+                return reader.read();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Packs the sentences into chunks lazily.
+     */
+    private static final class ChunkIterator implements Iterator<TextChunk> {
+        private final String docId;
+        private final SentenceReader sentences;
+        private final int maxTokens;
+        private final int overlapTokens;
+        private final List<Sentence> overlap = new ArrayList<>();
+        private Sentence pending;
+        private TextChunk next;
+        private int index;
+
+        ChunkIterator(String docId, SentenceReader sentences, int maxTokens, int overlapTokens) {
+            this.docId = docId;
+            this.sentences = sentences;
+            this.maxTokens = maxTokens;
+            this.overlapTokens = overlapTokens;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = nextChunk();
+            }
+            return next != null;
+        }
+
+        @Override
+        public TextChunk next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            TextChunk chunk = next;
+            next = null;
+            return chunk;
+        }
+
+        private TextChunk nextChunk() {
+            var current = new ArrayList<>(overlap);
+            int tokens = current.stream().mapToInt(Sentence::tokens).sum();
+            boolean added = false;
+
+            Sentence sentence;
+            while ((sentence = pending != null ? pending : sentences.next()) != null) {
+                pending = null;
+                if (added && tokens + sentence.tokens() > maxTokens) {
+                    pending = sentence;
+                    break;
+                }
+                while (!current.isEmpty() && tokens + sentence.tokens() > maxTokens) {
+                    tokens -= current.remove(0).tokens();
+                }
+                current.add(sentence);
+                tokens += sentence.tokens();
+                added = true;
+                if (sentence.endsParagraph() && tokens >= maxTokens / 2) {
+                    break;
+                }
+            }
+            if (!added) {
+                return null;
+            }
+
+            overlap.clear();
+            int overlapSize = 0;
+            boolean paragraphEnd = current.get(current.size() - 1).endsParagraph();
+            for (int i = current.size() - 1; i > 0 && !paragraphEnd; i--) {
+                overlapSize += current.get(i).tokens();
+                if (overlapSize > overlapTokens) {
+                    break;
+                }
+                overlap.add(0, current.get(i));
+            }
+
+            var text = new StringBuilder();
+            current.forEach(part -> text.append(part.text()));
+            return new TextChunk(docId, index++, current.get(0).start(), current.get(current.size() - 1).end(),
+                    tokens, text.toString());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.epam.training.gen.ai.chunking;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link TokenCounter} that estimates the tokens without a vocabulary: runs of letters and digits count one token
+ * every four characters, the usual ratio for English with the OpenAI tokenizers, and every other symbol counts as a
+ * token of its own. Whitespace is merged into the next word.
+ */
+@Component
+public class HeuristicTokenCounter implements TokenCounter {
+    private static final int CHARACTERS_PER_TOKEN = 4;
+
+    @Override
+    public int count(CharSequence text) {
+        int tokens = 0;
+        int run = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char character = text.charAt(i);
+            if (Character.isLetterOrDigit(character)) {
+                run++;
+                continue;
+            }
+            tokens += (run + CHARACTERS_PER_TOKEN - 1) / CHARACTERS_PER_TOKEN;
+            run = 0;
+            if (!Character.isWhitespace(character)) {
+                tokens++;
+            }
+        }
+        return tokens + (run + CHARACTERS_PER_TOKEN - 1) / CHARACTERS_PER_TOKEN;
+    }
+}
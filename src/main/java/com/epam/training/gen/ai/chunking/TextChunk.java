@@ -0,0 +1,14 @@
+package com.epam.training.gen.ai.chunking;
+
+/**
+ * Piece of a document that is embedded and stored as its own point.
+ *
+ * @param docId       identifier of the document the chunk belongs to
+ * @param index       position of the chunk within the document
+ * @param startOffset offset of the first character of the chunk within the document
+ * @param endOffset   offset right after the last character of the chunk within the document
+ * @param tokens      amount of tokens of the chunk
+ * @param text        the chunk text
+ */
+public record TextChunk(String docId, int index, long startOffset, long endOffset, int tokens, String text) {
+}
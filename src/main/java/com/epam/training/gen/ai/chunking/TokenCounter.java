@@ -0,0 +1,15 @@
+package com.epam.training.gen.ai.chunking;
+
+/**
+ * Counts the tokens the embedding and chat models see for a text.
+ */
+public interface TokenCounter {
+
+    /**
+     * Counts the tokens of a text.
+     *
+     * @param text the text to measure
+     * @return the amount of tokens
+     */
+    int count(CharSequence text);
+}
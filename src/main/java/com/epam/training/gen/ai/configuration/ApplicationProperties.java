@@ -1,4 +1,11 @@
 package com.epam.training.gen.ai.configuration;
 
-public record ApplicationProperties(String chatCompletionsUrl, String countriesApiUrl, DbProperties db) {
+public record ApplicationProperties(String chatCompletionsUrl, String countriesApiUrl, DbProperties db,
+                                    IngestionProperties ingestion, EmbeddingCacheProperties embeddingCache,
+                                    ChunkingProperties chunking, HybridSearchProperties hybrid,
+                                    SemanticCacheProperties semanticCache, RerankProperties rerank,
+                                    ChatHistoryProperties history, ConversationStoreProperties conversations,
+                                    ChatModelsProperties models, CompletionCacheProperties completionCache,
+                                    RoutingProperties routing, AutoModelProperties autoModel,
+                                    RateLimitProperties rateLimit, TokenizerProperties tokenizer) {
 }
@@ -0,0 +1,21 @@
+package com.epam.training.gen.ai.configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Settings of the {@code auto} model, which picks the deployment of every request.
+ *
+ * @param latencySlo             latency the picked deployment is expected to answer within
+ * @param expectedResponseTokens tokens of a usual response, added to the prompt tokens to predict the latency
+ * @param smoothing              weight of the latest request in the latency profile of a deployment, from 0 to 1
+ * @param profileTtl             age after which the profile of a deployment is ignored, so it is tried again
+ * @param tiers                  capability tiers, from the smallest and cheapest to the largest
+ */
+public record AutoModelProperties(Duration latencySlo, int expectedResponseTokens, double smoothing,
+                                  Duration profileTtl, List<ModelTierProperties> tiers) {
+
+    public AutoModelProperties {
+        tiers = tiers == null ? List.of() : List.copyOf(tiers);
+    }
+}
@@ -0,0 +1,11 @@
+package com.epam.training.gen.ai.configuration;
+
+/**
+ * Settings for the chat history sent with every prompt.
+ *
+ * @param maxTokens        token budget of the history, counting the system messages, the summary and the prompt
+ * @param keepTurns        amount of latest turns kept verbatim, the older ones are folded into the summary
+ * @param summaryMaxTokens maximum amount of tokens of the summary
+ */
+public record ChatHistoryProperties(int maxTokens, int keepTurns, int summaryMaxTokens) {
+}
@@ -0,0 +1,16 @@
+package com.epam.training.gen.ai.configuration;
+
+import java.util.List;
+
+/**
+ * Settings for the chat model clients shared between requests.
+ *
+ * @param maxModels maximum amount of models whose clients are kept, the clients of further models are not reused
+ * @param warmUp    models whose clients are built at startup instead of on the first request
+ */
+public record ChatModelsProperties(int maxModels, List<String> warmUp) {
+
+    public ChatModelsProperties {
+        warmUp = warmUp == null ? List.of() : List.copyOf(warmUp);
+    }
+}
@@ -0,0 +1,10 @@
+package com.epam.training.gen.ai.configuration;
+
+/**
+ * Settings for splitting documents into chunks before they are embedded.
+ *
+ * @param maxTokens     maximum amount of tokens within a chunk
+ * @param overlapTokens maximum amount of tokens repeated from the end of the previous chunk
+ */
+public record ChunkingProperties(int maxTokens, int overlapTokens) {
+}
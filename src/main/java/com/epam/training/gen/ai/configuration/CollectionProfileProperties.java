@@ -0,0 +1,31 @@
+package com.epam.training.gen.ai.configuration;
+
+import java.util.List;
+
+/**
+ * Tuning of the Qdrant collection, applied when it is created and when an existing collection is reconciled.
+ * <p>
+ * Zero values leave the Qdrant defaults in place.
+ *
+ * @param hnswM              edges per node of the HNSW graph, more edges raise the recall and the memory usage
+ * @param hnswEfConstruct    size of the candidate list while building the graph
+ * @param hnswEf             default size of the candidate list while searching, it can be overridden per search
+ * @param fullScanThreshold  size in KB below which a segment is searched without the graph
+ * @param onDiskVectors      whether the original vectors are stored on disk instead of in memory
+ * @param onDiskPayload      whether the payloads are stored on disk instead of in memory
+ * @param onDiskIndex        whether the HNSW graph is stored on disk instead of in memory
+ * @param shardNumber        amount of shards of the collection, only applied on creation
+ * @param replicationFactor  amount of copies of every shard, only applied on creation
+ * @param indexingThreshold  size in KB above which a segment gets an HNSW graph
+ * @param memmapThreshold    size in KB above which a segment is memory-mapped
+ * @param payloadIndexes     the payload fields to index
+ */
+public record CollectionProfileProperties(int hnswM, int hnswEfConstruct, int hnswEf, int fullScanThreshold,
+                                          boolean onDiskVectors, boolean onDiskPayload, boolean onDiskIndex,
+                                          int shardNumber, int replicationFactor, int indexingThreshold,
+                                          int memmapThreshold, List<PayloadIndexProperties> payloadIndexes) {
+
+    public CollectionProfileProperties {
+        payloadIndexes = payloadIndexes == null ? List.of() : List.copyOf(payloadIndexes);
+    }
+}
@@ -0,0 +1,15 @@
+package com.epam.training.gen.ai.configuration;
+
+import java.time.Duration;
+
+/**
+ * Settings for the exact-match cache of the simple prompt responses.
+ *
+ * @param enabled        whether identical prompts are answered from the cache
+ * @param maxTemperature highest temperature the cache is used with, higher ones are not deterministic enough to
+ *                       reuse a response
+ * @param maxEntries     maximum amount of cached responses
+ * @param ttl            time a cached response remains valid
+ */
+public record CompletionCacheProperties(boolean enabled, double maxTemperature, int maxEntries, Duration ttl) {
+}
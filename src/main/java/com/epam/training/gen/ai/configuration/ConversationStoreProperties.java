@@ -0,0 +1,15 @@
+package com.epam.training.gen.ai.configuration;
+
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Settings for the store of the chat conversations.
+ *
+ * @param memoryBudget estimated heap the conversations may take, the least recently used ones are evicted beyond it
+ * @param ttl          time a conversation is kept since it was last used
+ * @param spillPath    file holding the conversations evicted from memory, leave it empty to drop them instead
+ */
+public record ConversationStoreProperties(DataSize memoryBudget, Duration ttl, String spillPath) {
+}
@@ -1,4 +1,7 @@
 package com.epam.training.gen.ai.configuration;
 
-public record DbProperties(String server, int port, String collection, int vectorSize, int limit) {
+public record DbProperties(String server, int port, String collection, int vectorSize, int limit,
+                           VectorBackend backend, EmbeddedIndexProperties embedded,
+                           QuantizationProperties quantization, CollectionProfileProperties profile,
+                           WriteBehindProperties writeBehind, String snapshotDirectory) {
 }
@@ -0,0 +1,12 @@
+package com.epam.training.gen.ai.configuration;
+
+/**
+ * Settings for the embedded HNSW index.
+ *
+ * @param path           file where the index is persisted, leave it empty to keep it in memory only
+ * @param m              maximum amount of links per node on the upper layers, twice as many on the base layer
+ * @param efConstruction size of the candidate list while inserting
+ * @param efSearch       size of the candidate list while searching
+ */
+public record EmbeddedIndexProperties(String path, int m, int efConstruction, int efSearch) {
+}
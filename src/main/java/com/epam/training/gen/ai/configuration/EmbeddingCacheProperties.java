@@ -0,0 +1,22 @@
+package com.epam.training.gen.ai.configuration;
+
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Settings for the embeddings cache.
+ *
+ * @param enabled    whether the embeddings are cached or always requested to Azure OpenAI
+ * @param maxEntries maximum amount of vectors kept in heap
+ * @param ttl        time a cached vector remains valid
+ * @param diskPath   file backing the persistent tier, leave it empty to keep the cache in heap only
+ * @param diskSize   maximum size of the persistent tier file
+ */
+public record EmbeddingCacheProperties(
+        boolean enabled,
+        int maxEntries,
+        Duration ttl,
+        String diskPath,
+        DataSize diskSize) {
+}
@@ -0,0 +1,13 @@
+package com.epam.training.gen.ai.configuration;
+
+/**
+ * Settings for the hybrid search, which merges the vector search with a BM25 search over the {@code text} payload.
+ *
+ * @param enabled      whether the searches are hybrid or only vector based
+ * @param candidates   amount of results taken from each search before merging them
+ * @param rankConstant constant of the reciprocal rank fusion, higher values flatten the weight of the top ranks
+ * @param k1           BM25 term frequency saturation
+ * @param b            BM25 document length normalization
+ */
+public record HybridSearchProperties(boolean enabled, int candidates, int rankConstant, double k1, double b) {
+}
@@ -0,0 +1,11 @@
+package com.epam.training.gen.ai.configuration;
+
+/**
+ * Settings for the bulk embeddings ingestion.
+ *
+ * @param batchSize       maximum amount of texts sent within a single embeddings request
+ * @param concurrency     maximum amount of embeddings requests running at the same time
+ * @param upsertChunkSize maximum amount of points sent within a single Qdrant upsert
+ */
+public record IngestionProperties(int batchSize, int concurrency, int upsertChunkSize) {
+}
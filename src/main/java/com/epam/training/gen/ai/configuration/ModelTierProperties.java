@@ -0,0 +1,16 @@
+package com.epam.training.gen.ai.configuration;
+
+import java.util.List;
+
+/**
+ * Capability tier of the deployments the {@code auto} model picks from.
+ *
+ * @param maxPromptTokens largest prompt the tier is meant for, zero for no limit
+ * @param deployments     deployments of the tier, cheapest first
+ */
+public record ModelTierProperties(int maxPromptTokens, List<String> deployments) {
+
+    public ModelTierProperties {
+        deployments = deployments == null ? List.of() : List.copyOf(deployments);
+    }
+}
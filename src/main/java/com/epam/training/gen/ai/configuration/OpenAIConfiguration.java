@@ -3,15 +3,14 @@ package com.epam.training.gen.ai.configuration;
 import com.azure.ai.openai.OpenAIAsyncClient;
 import com.azure.ai.openai.OpenAIClientBuilder;
 import com.azure.core.credential.AzureKeyCredential;
+import com.azure.core.http.policy.ExponentialBackoffOptions;
+import com.azure.core.http.policy.RetryOptions;
 import com.epam.training.gen.ai.model.InventoryItem;
-import com.microsoft.semantickernel.services.chatcompletion.ChatHistory;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Scope;
-import org.springframework.context.annotation.ScopedProxyMode;
 import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
 
@@ -33,15 +32,21 @@ public class OpenAIConfiguration {
 
     /**
      * Creates an {@link OpenAIAsyncClient} bean for interacting with Azure OpenAI Service asynchronously.
+     * <p>
+     * When the completions are paced by the rate limiter, the client does not retry them itself, so a throttled
+     * completion pauses the whole deployment instead of being retried on its own.
      *
      * @return an instance of {@link OpenAIAsyncClient}
      */
     @Bean
     public OpenAIAsyncClient openAIAsyncClient() {
-        return new OpenAIClientBuilder()
+        var builder = new OpenAIClientBuilder()
                 .credential(new AzureKeyCredential(clientOpenAiProperties.clientOpenAiKey()))
-                .endpoint(clientOpenAiProperties.clientOpenAiEndpoint())
-                .buildAsyncClient();
+                .endpoint(clientOpenAiProperties.clientOpenAiEndpoint());
+        if (clientOpenAiProperties.application().rateLimit().enabled()) {
+            builder.retryOptions(new RetryOptions(new ExponentialBackoffOptions().setMaxRetries(0)));
+        }
+        return builder.buildAsyncClient();
     }
 
     /**
@@ -88,19 +93,6 @@ public class OpenAIConfiguration {
     }
 
 
-    /**
-     * Creates a {@link ChatHistory} instance of session scope that would store the Prompt History so that the AI
-     * Assistant get the previous context of the conversation.
-     *
-     * @return a {@link ChatHistory} bean
-     */
-    @Bean
-    @Scope(value = "session", proxyMode = ScopedProxyMode.TARGET_CLASS)
-    public ChatHistory chatHistory() {
-        return new ChatHistory();
-    }
-
-
     /**
      * Creates the initial inventory mock instance.
      *
@@ -0,0 +1,14 @@
+package com.epam.training.gen.ai.configuration;
+
+/**
+ * Type of a payload field index.
+ */
+public enum PayloadFieldType {
+    KEYWORD,
+    INTEGER,
+    FLOAT,
+    BOOL,
+    TEXT,
+    DATETIME,
+    UUID
+}
@@ -0,0 +1,10 @@
+package com.epam.training.gen.ai.configuration;
+
+/**
+ * Index over a payload field, so filters on that field do not scan the payloads.
+ *
+ * @param field the payload field name
+ * @param type  the type of the indexed values
+ */
+public record PayloadIndexProperties(String field, PayloadFieldType type) {
+}
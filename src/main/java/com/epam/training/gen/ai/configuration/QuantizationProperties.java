@@ -0,0 +1,18 @@
+package com.epam.training.gen.ai.configuration;
+
+/**
+ * Vector quantization settings.
+ * <p>
+ * The quantized vectors are kept in memory and used to find the candidates, which are then rescored against the
+ * original vectors.
+ *
+ * @param type         the quantization applied to the vectors
+ * @param oversampling how many more candidates than the requested limit are rescored, {@code 1} disables it
+ * @param alwaysRam    whether Qdrant keeps the quantized vectors in memory while the originals stay on disk
+ */
+public record QuantizationProperties(QuantizationType type, double oversampling, boolean alwaysRam) {
+
+    public boolean enabled() {
+        return type != null && type != QuantizationType.NONE;
+    }
+}
@@ -0,0 +1,19 @@
+package com.epam.training.gen.ai.configuration;
+
+/**
+ * Compression applied to the stored vectors.
+ */
+public enum QuantizationType {
+    /**
+     * Full precision {@code float32} vectors.
+     */
+    NONE,
+    /**
+     * One signed byte per dimension, about four times less memory.
+     */
+    SCALAR,
+    /**
+     * One bit per dimension, about thirty-two times less memory.
+     */
+    BINARY
+}
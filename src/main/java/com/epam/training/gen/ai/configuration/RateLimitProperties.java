@@ -0,0 +1,28 @@
+package com.epam.training.gen.ai.configuration;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Settings for pacing the chat completions within the rate limits of every deployment.
+ *
+ * @param enabled        whether the completions are paced, the Azure OpenAI client does not retry them then
+ * @param defaults       rate limits of the deployments missing from {@code deployments}
+ * @param deployments    rate limits by deployment
+ * @param burst          share of the minute that may be spent at once, Azure OpenAI checks the limits over short
+ *                       periods too
+ * @param maxQueued      maximum amount of completions waiting per deployment, further ones are rejected
+ * @param maxWait        longest wait of a completion for its deployment before it is rejected
+ * @param maxRetries     retries of a completion throttled by Azure OpenAI
+ * @param initialBackoff wait before the first retry when Azure OpenAI does not tell how long to wait
+ * @param maxBackoff     longest wait before a retry
+ */
+public record RateLimitProperties(boolean enabled, RateLimitQuotaProperties defaults,
+                                  Map<String, RateLimitQuotaProperties> deployments, Duration burst,
+                                  int maxQueued, Duration maxWait, int maxRetries, Duration initialBackoff,
+                                  Duration maxBackoff) {
+
+    public RateLimitProperties {
+        deployments = deployments == null ? Map.of() : Map.copyOf(deployments);
+    }
+}
@@ -0,0 +1,10 @@
+package com.epam.training.gen.ai.configuration;
+
+/**
+ * Rate limits of a deployment, as assigned in Azure OpenAI.
+ *
+ * @param requestsPerMinute requests allowed per minute, zero for no limit
+ * @param tokensPerMinute   tokens allowed per minute, counting the prompt and the maximum response, zero for no limit
+ */
+public record RateLimitQuotaProperties(int requestsPerMinute, int tokensPerMinute) {
+}
@@ -0,0 +1,12 @@
+package com.epam.training.gen.ai.configuration;
+
+/**
+ * Settings for the exact re-ranking of the vector search results.
+ *
+ * @param enabled      whether the approximate matches are re-ranked with their exact cosine similarity
+ * @param oversampling how many more candidates than the requested matches are fetched and re-ranked
+ * @param mmr          whether the matches are diversified with maximal marginal relevance
+ * @param mmrLambda    weight of the relevance against the diversity, {@code 1} ignores the diversity
+ */
+public record RerankProperties(boolean enabled, double oversampling, boolean mmr, double mmrLambda) {
+}
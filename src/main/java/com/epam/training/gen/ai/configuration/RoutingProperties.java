@@ -0,0 +1,23 @@
+package com.epam.training.gen.ai.configuration;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Settings for routing the chat completions across deployments.
+ *
+ * @param enabled         whether the completions may go to a backup deployment
+ * @param groups          backup deployments of every deployment, in the order they are tried
+ * @param hedgePercentile latency percentile of a deployment after which a hedged request goes to its backup
+ * @param minHedgeDelay   shortest wait before a hedged request, also used until the latencies are known
+ * @param hedgeBudget     highest share of the requests that may be hedged, from 0 to 1
+ * @param latencyWindow   amount of latest latencies kept per deployment to compute the percentile
+ */
+public record RoutingProperties(boolean enabled, Map<String, List<String>> groups, double hedgePercentile,
+                                Duration minHedgeDelay, double hedgeBudget, int latencyWindow) {
+
+    public RoutingProperties {
+        groups = groups == null ? Map.of() : Map.copyOf(groups);
+    }
+}
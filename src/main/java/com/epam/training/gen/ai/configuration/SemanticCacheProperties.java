@@ -0,0 +1,14 @@
+package com.epam.training.gen.ai.configuration;
+
+import java.time.Duration;
+
+/**
+ * Settings for the semantic cache of the simple prompt responses.
+ *
+ * @param enabled             whether similar prompts are answered from the cache
+ * @param similarityThreshold minimum cosine similarity between two prompts to reuse the response, from 0 to 1
+ * @param maxEntries          maximum amount of cached responses
+ * @param ttl                 time a cached response remains valid
+ */
+public record SemanticCacheProperties(boolean enabled, double similarityThreshold, int maxEntries, Duration ttl) {
+}
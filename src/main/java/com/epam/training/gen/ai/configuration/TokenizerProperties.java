@@ -0,0 +1,12 @@
+package com.epam.training.gen.ai.configuration;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * Settings for counting the tokens of the prompts, the histories and the documents.
+ *
+ * @param vocabulary the {@code cl100k_base} vocabulary in the {@code .tiktoken} format, the tokens are estimated
+ *                   when it is empty and the startup fails when it is set but missing
+ */
+public record TokenizerProperties(Resource vocabulary) {
+}
@@ -0,0 +1,15 @@
+package com.epam.training.gen.ai.configuration;
+
+/**
+ * Available implementations of the vector storage.
+ */
+public enum VectorBackend {
+    /**
+     * Remote Qdrant database accessed through gRPC.
+     */
+    QDRANT,
+    /**
+     * In-process HNSW index.
+     */
+    EMBEDDED
+}
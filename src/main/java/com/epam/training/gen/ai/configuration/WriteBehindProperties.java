@@ -0,0 +1,18 @@
+package com.epam.training.gen.ai.configuration;
+
+import java.time.Duration;
+
+/**
+ * Settings for the write-behind buffer that groups the upserts of concurrent requests.
+ *
+ * @param enabled         whether the upserts are buffered or sent to the vector store right away
+ * @param maxBatchSize    amount of records that triggers a flush
+ * @param flushInterval   maximum time a record waits in the buffer before being flushed
+ * @param capacity        maximum amount of records buffered or being flushed, further requests wait for room
+ * @param waitForApply    whether Qdrant acknowledges an upsert once it is applied instead of once it is written to
+ *                        its write-ahead log
+ * @param shutdownTimeout maximum time spent flushing the buffered records on shutdown
+ */
+public record WriteBehindProperties(boolean enabled, int maxBatchSize, Duration flushInterval, int capacity,
+                                    boolean waitForApply, Duration shutdownTimeout) {
+}
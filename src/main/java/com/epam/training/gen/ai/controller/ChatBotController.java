@@ -1,17 +1,30 @@
 package com.epam.training.gen.ai.controller;
 
 import com.epam.training.gen.ai.model.ChatbotResponse;
+import com.epam.training.gen.ai.model.ModelProfile;
 import com.epam.training.gen.ai.model.PromptRequest;
+import com.epam.training.gen.ai.model.RoutingStats;
+import com.epam.training.gen.ai.routing.DeploymentRouter;
+import com.epam.training.gen.ai.routing.ModelRouter;
 import com.epam.training.gen.ai.service.PromptService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
 
 /**
  * REST Controller to send prompt to the Azure OpenAI Assitant and get responses.
@@ -20,31 +33,110 @@ import org.springframework.web.server.ResponseStatusException;
 @RequestMapping(path = "/api/chat-bot", produces = MimeTypeUtils.APPLICATION_JSON_VALUE)
 @RequiredArgsConstructor
 public class ChatBotController {
+    private static final String CACHE_HEADER = "X-Cache";
 
     private final PromptService promptService;
+    private final DeploymentRouter deploymentRouter;
+    private final ModelRouter modelRouter;
+    private final ConversationIds conversationIds;
 
     /**
      * Simple endpoint to send Azure OpenAI a user prompt.
      *
      * @param request the user's prompt
-     * @return the OpenAI response
+     * @return the OpenAI response, the {@code X-Cache} header tells whether it was a cache {@code HIT} or
+     * {@code MISS}
      */
     @PostMapping(value = "/simple-prompt")
-    public ChatbotResponse sendSimplePrompt(@RequestBody PromptRequest request) {
+    public ResponseEntity<ChatbotResponse> sendSimplePrompt(@RequestBody PromptRequest request) {
         validateInput(request.input());
-        return promptService.sendSimplePrompt(request.input(), request.model());
+        var result = promptService.sendSimplePrompt(request.input(), request.model());
+        return ResponseEntity.ok()
+                .header(CACHE_HEADER, result.cacheHit() ? "HIT" : "MISS")
+                .body(result.response());
     }
 
     /**
-     * Eendpoint to send Azure OpenAI a user prompt with history.
+     * Simple endpoint to send Azure OpenAI a user prompt, streaming the response as it is generated.
      *
      * @param request the user's prompt
+     * @return the OpenAI response as Server-Sent Events
+     */
+    @PostMapping(value = "/simple-prompt/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<ChatbotResponse>> streamSimplePrompt(@RequestBody PromptRequest request) {
+        validateInput(request.input());
+        return ChatEvents.of(promptService.streamSimplePrompt(request.input(), request.model()));
+    }
+
+    /**
+     * Eendpoint to send Azure OpenAI a user prompt with history.
+     *
+     * @param request        the user's prompt
+     * @param conversationId the conversation to continue, started with {@code POST /api/chat-bot/conversations}, or
+     *                       the one of the HTTP session if missing
+     * @param httpRequest    the HTTP request, to find its session
      * @return the OpenAI response
      */
     @PostMapping(value = "/prompt-with-history")
-    public ChatbotResponse sendPromptWithHistory(@RequestBody PromptRequest request) {
+    public ChatbotResponse sendPromptWithHistory(
+            @RequestBody PromptRequest request,
+            @RequestHeader(value = ConversationIds.HEADER, required = false) String conversationId,
+            HttpServletRequest httpRequest) {
+        validateInput(request.input());
+        return promptService.sendPromptWithHistory(
+                conversationIds.resolve(conversationId, httpRequest), request.input(), request.model());
+    }
+
+    /**
+     * Endpoint to send Azure OpenAI a user prompt with history, streaming the response as it is generated.
+     *
+     * @param request        the user's prompt
+     * @param conversationId the conversation to continue, started with {@code POST /api/chat-bot/conversations}, or
+     *                       the one of the HTTP session if missing
+     * @param httpRequest    the HTTP request, to find its session
+     * @return the OpenAI response as Server-Sent Events
+     */
+    @PostMapping(value = "/prompt-with-history/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<ChatbotResponse>> streamPromptWithHistory(
+            @RequestBody PromptRequest request,
+            @RequestHeader(value = ConversationIds.HEADER, required = false) String conversationId,
+            HttpServletRequest httpRequest) {
         validateInput(request.input());
-        return promptService.sendPromptWithHistory(request.input(), request.model());
+        return ChatEvents.of(promptService.streamPromptWithHistory(
+                conversationIds.resolve(conversationId, httpRequest), request.input(), request.model()));
+    }
+
+    /**
+     * Endpoint to start a conversation that is continued by its id instead of the HTTP session, so any node and any
+     * client holding the id can continue it.
+     *
+     * @return an empty response with the id of the conversation in the {@code X-Conversation-Id} header
+     */
+    @PostMapping(value = "/conversations")
+    public ResponseEntity<Void> createConversation() {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header(ConversationIds.HEADER, conversationIds.create())
+                .build();
+    }
+
+    /**
+     * Endpoint to visualize the routing of the completions across deployments.
+     *
+     * @return the current {@link RoutingStats}
+     */
+    @GetMapping(value = "/routing/stats")
+    public ResponseEntity<RoutingStats> getRoutingStats() {
+        return ResponseEntity.ok(deploymentRouter.stats());
+    }
+
+    /**
+     * Endpoint to visualize the latency profiles the {@code auto} model picks the deployments by.
+     *
+     * @return the current {@link ModelProfile} of every deployment of the tiers
+     */
+    @GetMapping(value = "/routing/models")
+    public ResponseEntity<List<ModelProfile>> getModelProfiles() {
+        return ResponseEntity.ok(modelRouter.profiles());
     }
 
     private void validateInput(String input) {
@@ -0,0 +1,30 @@
+package com.epam.training.gen.ai.controller;
+
+import com.epam.training.gen.ai.model.ChatbotResponse;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+
+/**
+ * Maps a streamed chat response to Server-Sent Events.
+ * <p>
+ * Every piece of the response is sent as it arrives in an unnamed event holding a {@link ChatbotResponse}, JSON keeps
+ * the leading whitespace of the pieces that the event format would drop. A {@code done} event ends a complete
+ * response, and an {@code error} event holding the message ends a failed one.
+ */
+final class ChatEvents {
+    private static final String DONE_EVENT = "done";
+    private static final String ERROR_EVENT = "error";
+
+    private ChatEvents() {
+    }
+
+    static Flux<ServerSentEvent<ChatbotResponse>> of(Flux<String> contents) {
+        return contents
+                .map(content -> ServerSentEvent.builder(new ChatbotResponse(content)).build())
+                .concatWithValues(ServerSentEvent.<ChatbotResponse>builder().event(DONE_EVENT).build())
+                .onErrorResume(error -> Flux.just(ServerSentEvent.<ChatbotResponse>builder()
+                        .event(ERROR_EVENT)
+                        .data(new ChatbotResponse(error.getMessage()))
+                        .build()));
+    }
+}
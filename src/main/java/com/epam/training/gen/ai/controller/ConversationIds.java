@@ -0,0 +1,60 @@
+package com.epam.training.gen.ai.controller;
+
+import com.epam.training.gen.ai.history.ConversationStore;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.regex.Pattern;
+
+/**
+ * Resolves the conversation of a chat request: the one named by the {@code X-Conversation-Id} header, or else the
+ * one of the HTTP session. The session conversations have a prefix the header cannot hold, so both never collide.
+ * <p>
+ * The header only accepts the random ids issued by {@link ConversationStore#create()}, and the ids that are unknown
+ * or expired are rejected instead of starting a conversation, so a conversation is only reachable by whoever was
+ * given its id.
+ */
+@Component
+@RequiredArgsConstructor
+class ConversationIds {
+    static final String HEADER = "X-Conversation-Id";
+    private static final Pattern CONVERSATION_ID = Pattern.compile(
+            "\\p{XDigit}{8}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{12}");
+    private static final String SESSION_PREFIX = "session:";
+
+    private final ConversationStore conversationStore;
+
+    /**
+     * Starts a new conversation.
+     *
+     * @return the id of the conversation, to send in the {@code X-Conversation-Id} header
+     */
+    String create() {
+        return conversationStore.create();
+    }
+
+    /**
+     * Resolves the conversation of a request.
+     *
+     * @param conversationId the {@code X-Conversation-Id} header, null if missing
+     * @param request        the HTTP request, to find its session
+     * @return the id of the conversation in the {@link ConversationStore}
+     */
+    String resolve(String conversationId, HttpServletRequest request) {
+        if (conversationId == null) {
+            return SESSION_PREFIX + request.getSession().getId();
+        }
+        if (!CONVERSATION_ID.matcher(conversationId).matches()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "'" + HEADER + "' must be a conversation id returned by POST /api/chat-bot/conversations");
+        }
+        if (!conversationStore.contains(conversationId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    "Conversation " + conversationId + " does not exist or has expired");
+        }
+        return conversationId;
+    }
+}
@@ -3,15 +3,20 @@ package com.epam.training.gen.ai.controller;
 import com.epam.training.gen.ai.model.ChatbotResponse;
 import com.epam.training.gen.ai.model.PromptRequest;
 import com.epam.training.gen.ai.service.CountryChatService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 
 /**
  * REST Controller to send prompt to the Azure OpenAI Assistant and get responses about countries.
@@ -22,17 +27,44 @@ import org.springframework.web.server.ResponseStatusException;
 public class CountryInfoController {
 
     private final CountryChatService countryChatService;
+    private final ConversationIds conversationIds;
 
     /**
      * Eendpoint to send Azure OpenAI a user prompt with history.
      *
-     * @param request the user's prompt
+     * @param request        the user's prompt
+     * @param conversationId the conversation to continue, started with {@code POST /api/chat-bot/conversations}, or
+     *                       the one of the HTTP session if missing
+     * @param httpRequest    the HTTP request, to find its session
      * @return the OpenAI response
      */
     @PostMapping()
-    public ChatbotResponse sendPromptWithHistory(@RequestBody PromptRequest request) {
+    public ChatbotResponse sendPromptWithHistory(
+            @RequestBody PromptRequest request,
+            @RequestHeader(value = ConversationIds.HEADER, required = false) String conversationId,
+            HttpServletRequest httpRequest) {
         validateInput(request.input());
-        return countryChatService.sendPromptWithHistory(request.input(), request.model());
+        return countryChatService.sendPromptWithHistory(
+                conversationIds.resolve(conversationId, httpRequest), request.input(), request.model());
+    }
+
+    /**
+     * Endpoint to send Azure OpenAI a user prompt with history, streaming the response as it is generated.
+     *
+     * @param request        the user's prompt
+     * @param conversationId the conversation to continue, started with {@code POST /api/chat-bot/conversations}, or
+     *                       the one of the HTTP session if missing
+     * @param httpRequest    the HTTP request, to find its session
+     * @return the OpenAI response as Server-Sent Events
+     */
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<ChatbotResponse>> streamPromptWithHistory(
+            @RequestBody PromptRequest request,
+            @RequestHeader(value = ConversationIds.HEADER, required = false) String conversationId,
+            HttpServletRequest httpRequest) {
+        validateInput(request.input());
+        return ChatEvents.of(countryChatService.streamPromptWithHistory(
+                conversationIds.resolve(conversationId, httpRequest), request.input(), request.model()));
     }
 
     private void validateInput(String input) {
@@ -1,41 +1,89 @@
 package com.epam.training.gen.ai.controller;
 
-import com.azure.ai.openai.models.EmbeddingItem;
+import com.epam.training.gen.ai.cache.EmbeddingCache;
+import com.epam.training.gen.ai.chunking.DocumentChunker;
+import com.epam.training.gen.ai.chunking.TextChunk;
+import com.epam.training.gen.ai.model.BatchSearchQuery;
+import com.epam.training.gen.ai.model.BatchSearchRequest;
+import com.epam.training.gen.ai.model.BatchSearchResult;
+import com.epam.training.gen.ai.model.EmbeddingCacheStats;
 import com.epam.training.gen.ai.model.EmbeddingRequest;
 import com.epam.training.gen.ai.model.EmbeddingSearchItem;
+import com.epam.training.gen.ai.model.EmbeddingVector;
+import com.epam.training.gen.ai.model.IngestionItemResult;
+import com.epam.training.gen.ai.model.SearchOptions;
+import com.epam.training.gen.ai.model.SnapshotSummary;
+import com.epam.training.gen.ai.service.EmbeddingIngestionService;
+import com.epam.training.gen.ai.service.SnapshotService;
 import com.epam.training.gen.ai.service.VectorDbService;
-import io.qdrant.client.grpc.Points;
+import com.epam.training.gen.ai.vector.VectorMatch;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
 
 /**
- * API controller to handle embedding petitions with Qdrant Database.
+ * API controller to handle embedding petitions with the vector database.
  */
+@Slf4j
 @RestController
 @RequestMapping(path = "/api/embeddings", produces = MimeTypeUtils.APPLICATION_JSON_VALUE)
 @RequiredArgsConstructor
 public class EmbeddingController {
+    private static final String TEXT_FIELD = "text";
+    private static final String NO_FIELDS = "none";
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("\\w[\\w.-]*");
 
     public final VectorDbService vectorDbService;
+    private final EmbeddingIngestionService embeddingIngestionService;
+    private final EmbeddingCache embeddingCache;
+    private final DocumentChunker documentChunker;
+    private final ObjectMapper objectMapper;
+    private final SnapshotService snapshotService;
 
     /**
-     * Endpoint to create a new Qdrant collection.
+     * Endpoint to create a new vector collection.
      *
      * @return 200 Status code if successful
-     * @throws ExecutionException   in case the execution fails
-     * @throws InterruptedException in case an interruption happens
      */
     @PostMapping(value = "/collection")
-    public ResponseEntity<String> createNewCollection() throws ExecutionException, InterruptedException {
-        vectorDbService.createCollection();
-        return ResponseEntity.status(HttpStatus.CREATED).body("Collection created");
+    public Mono<ResponseEntity<String>> createNewCollection() {
+        return vectorDbService.createCollection()
+                .thenReturn(ResponseEntity.status(HttpStatus.CREATED).body("Collection created"));
+    }
+
+    /**
+     * Endpoint to apply the configured HNSW, optimizer, storage and payload index settings to the existing
+     * collection. The stored vectors are kept.
+     *
+     * @return 200 Status code if successful
+     */
+    @PutMapping(value = "/collection")
+    public Mono<ResponseEntity<String>> reconcileCollection() {
+        return vectorDbService.reconcileCollection()
+                .thenReturn(ResponseEntity.ok("Collection updated"));
     }
 
     /**
@@ -43,61 +91,243 @@ public class EmbeddingController {
      *
      * @param request the text input request
      * @return a list of Embeddings (vectors) given the input
-     * @throws ExecutionException   in case the execution fails
-     * @throws InterruptedException in case an interruption happens
      */
     @PostMapping(value = "/preview")
-    public ResponseEntity<List<EmbeddingItem>> getEmbeddings(@RequestBody EmbeddingRequest request)
-            throws ExecutionException, InterruptedException {
-        var embeddings = vectorDbService.getEmbeddings(request.text());
-        return ResponseEntity.ok(embeddings);
+    public Mono<ResponseEntity<List<EmbeddingVector>>> getEmbeddings(@RequestBody EmbeddingRequest request) {
+        return vectorDbService.getEmbeddings(request.text())
+                .map(ResponseEntity::ok);
     }
 
     /**
      * Endpoint to generate and persist embeddings from an input text. The embeddings would be stored
-     * in a Qdrant DB.
+     * in the vector database.
      *
      * @param request the text input request
      * @return a list of Embeddings (vectors) given the input
-     * @throws ExecutionException   in case the execution fails
-     * @throws InterruptedException in case an interruption happens
      */
     @PostMapping()
-    public ResponseEntity<List<EmbeddingItem>> saveEmbeddings(@RequestBody EmbeddingRequest request)
-            throws ExecutionException, InterruptedException {
-        var embeddings = vectorDbService.persistEmbeddings(request.text());
-        return ResponseEntity.status(HttpStatus.CREATED).body(embeddings);
+    public Mono<ResponseEntity<List<EmbeddingVector>>> saveEmbeddings(@RequestBody EmbeddingRequest request) {
+        return vectorDbService.persistEmbeddings(request.text())
+                .map(embeddings -> ResponseEntity.status(HttpStatus.CREATED).body(embeddings));
+    }
+
+    /**
+     * Endpoint to generate and persist embeddings for many texts at once. The body can be either a JSON array
+     * or newline-delimited JSON of {@link EmbeddingRequest}; it is read as a stream so large corpora are never
+     * fully loaded into memory.
+     *
+     * @param body the request body
+     * @return the outcome of every item, streamed while the ingestion progresses
+     */
+    @PostMapping(value = "/bulk",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<IngestionItemResult> saveEmbeddingsInBulk(InputStream body) {
+        Flux<EmbeddingRequest> requests = Flux.using(
+                        () -> objectMapper.readerFor(EmbeddingRequest.class).<EmbeddingRequest>readValues(body),
+                        iterator -> Flux.fromIterable(() -> iterator),
+                        this::closeQuietly)
+                .subscribeOn(Schedulers.boundedElastic());
+        return embeddingIngestionService.ingest(requests);
+    }
+
+    /**
+     * Endpoint to split a large plain text document into chunks and persist the embeddings of every chunk. The
+     * body is read as a stream, so the document is never fully loaded into memory.
+     * <p>
+     * The chunks already stored for the same document are skipped. Without a {@code docId} every upload gets a random
+     * id and is stored as a new document, so uploading the same text again embeds and stores it again; pass the same
+     * {@code docId} to re-ingest a document.
+     *
+     * @param docId identifier of the document, a random one is used when missing
+     * @param body  the document contents, UTF-8 encoded
+     * @return the outcome of every chunk, streamed while the ingestion progresses
+     */
+    @PostMapping(value = "/document",
+            consumes = MediaType.TEXT_PLAIN_VALUE,
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<IngestionItemResult> saveDocument(@RequestParam(required = false) String docId, InputStream body) {
+        String documentId = docId == null ? UUID.randomUUID().toString() : docId;
+        Flux<TextChunk> chunks = Flux.using(
+                        () -> new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)),
+                        reader -> documentChunker.chunk(documentId, reader),
+                        this::closeQuietly)
+                .subscribeOn(Schedulers.boundedElastic());
+        return embeddingIngestionService.ingestDocument(chunks);
     }
 
     /**
      * Endpoint to run a semantic search given an input text.
+     * <p>
+     * Only the stored text is returned by default. The {@code fields} parameter selects the payload fields instead,
+     * {@code none} returns only the ids and the scores, and {@code snippetLength} cuts the returned texts. The
+     * results are paged with {@code offset} and {@code limit}.
      *
-     * @param text input to search in the Qdrant DB.
+     * @param text           input to search in the vector database.
+     * @param limit          maximum amount of results, the configured limit is used when missing
+     * @param offset         amount of best results skipped
+     * @param scoreThreshold minimum vector similarity of the results
+     * @param fields         the payload fields to return, {@code none} for no payload
+     * @param snippetLength  maximum amount of characters of the returned texts
+     * @param hnswEf         size of the candidate list while searching, the configured one is used when missing
+     * @param exact          whether every vector is compared instead of walking the index
      * @return a list of the approximate closest points
-     * @throws ExecutionException   in case the execution fails
-     * @throws InterruptedException in case an interruption happens
      */
     @GetMapping()
-    public ResponseEntity<List<EmbeddingSearchItem>> search(@RequestParam String text)
-            throws ExecutionException, InterruptedException {
-        var scoredPoints = vectorDbService.search(text);
-        var response = mapScoredPointsToSearchItem(scoredPoints);
+    public Mono<ResponseEntity<List<EmbeddingSearchItem>>> search(@RequestParam String text,
+                                                                  @RequestParam(required = false) Integer limit,
+                                                                  @RequestParam(defaultValue = "0") int offset,
+                                                                  @RequestParam(required = false) Float scoreThreshold,
+                                                                  @RequestParam(required = false) List<String> fields,
+                                                                  @RequestParam(required = false) Integer snippetLength,
+                                                                  @RequestParam(required = false) Integer hnswEf,
+                                                                  @RequestParam(defaultValue = "false") boolean exact) {
+        validateSearch(limit, offset, snippetLength);
+        validateHnswEf(hnswEf);
+        var options = new SearchOptions(limit, offset, scoreThreshold, toPayloadFields(fields), hnswEf, exact);
+        return vectorDbService.search(text, options)
+                .map(matches -> mapMatchesToSearchItem(matches, snippetLength))
+                .map(ResponseEntity::ok);
+    }
 
-        return ResponseEntity.ok(response);
+    /**
+     * Endpoint to run several semantic searches at once. All the queries are embedded within a single request and
+     * searched within a single round trip to the vector database.
+     *
+     * @param request the queries, each one with its own limit and score threshold
+     * @return the closest points of every query, in the same order as the queries
+     */
+    @PostMapping(value = "/search/batch")
+    public Mono<ResponseEntity<List<BatchSearchResult>>> searchBatch(@RequestBody BatchSearchRequest request) {
+        validateBatchSearch(request);
+        var queries = request.queries();
+        return vectorDbService.searchBatch(queries)
+                .map(results -> {
+                    var response = new ArrayList<BatchSearchResult>(queries.size());
+                    for (int i = 0; i < queries.size(); i++) {
+                        response.add(new BatchSearchResult(queries.get(i).text(),
+                                mapMatchesToSearchItem(results.get(i), null)));
+                    }
+                    return ResponseEntity.ok(response);
+                });
     }
 
-    private List<EmbeddingSearchItem> mapScoredPointsToSearchItem(List<Points.ScoredPoint> scoredPoints) {
-        List<EmbeddingSearchItem> embeddingSearchItemList = new ArrayList<>();
-        scoredPoints.forEach(scoredPoint -> {
-            var id = scoredPoint.getId().getUuid();
-            var score = scoredPoint.getScore();
-            var payload = scoredPoint.getPayloadOrDefault("text", null);
-            var payloadString = payload == null ? "" : payload.getStringValue();
+    /**
+     * Endpoint to write every vector of the collection, with its payload, to a binary snapshot file.
+     *
+     * @param name the snapshot file name within the snapshots directory
+     * @return the amount of records exported
+     */
+    @PostMapping(value = "/snapshot/export")
+    public Mono<ResponseEntity<SnapshotSummary>> exportSnapshot(@RequestParam String name) {
+        validateSnapshotName(name);
+        return snapshotService.exportSnapshot(name)
+                .map(summary -> ResponseEntity.status(HttpStatus.CREATED).body(summary));
+    }
 
-            EmbeddingSearchItem embeddingSearchItem = new EmbeddingSearchItem(id, score, payloadString);
-            embeddingSearchItemList.add(embeddingSearchItem);
-        });
+    /**
+     * Endpoint to load the vectors of a binary snapshot file into the collection, without embedding them again.
+     *
+     * @param name the snapshot file name within the snapshots directory
+     * @return the amount of records imported
+     */
+    @PostMapping(value = "/snapshot/import")
+    public Mono<ResponseEntity<SnapshotSummary>> importSnapshot(@RequestParam String name) {
+        validateSnapshotName(name);
+        return snapshotService.importSnapshot(name)
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Endpoint to visualize the embeddings cache metrics.
+     *
+     * @return the current {@link EmbeddingCacheStats}
+     */
+    @GetMapping(value = "/cache/stats")
+    public ResponseEntity<EmbeddingCacheStats> getCacheStats() {
+        return ResponseEntity.ok(embeddingCache.stats());
+    }
 
+    private void validateBatchSearch(BatchSearchRequest request) {
+        if (request.queries() == null || request.queries().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'queries' is mandatory");
+        }
+        for (BatchSearchQuery query : request.queries()) {
+            if (query == null || StringUtils.isBlank(query.text())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'text' is mandatory for every query");
+            }
+            if (query.limit() != null && query.limit() <= 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'limit' must be positive");
+            }
+            validateHnswEf(query.hnswEf());
+        }
+    }
+
+    private void validateSnapshotName(String name) {
+        if (!SNAPSHOT_NAME.matcher(name).matches()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "'name' must be a file name made of letters, digits, '.', '_' and '-'");
+        }
+    }
+
+    private void validateSearch(Integer limit, int offset, Integer snippetLength) {
+        if (limit != null && limit <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'limit' must be positive");
+        }
+        if (offset < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'offset' must not be negative");
+        }
+        if (snippetLength != null && snippetLength <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'snippetLength' must be positive");
+        }
+    }
+
+    private List<String> toPayloadFields(List<String> fields) {
+        if (fields == null) {
+            return List.of(TEXT_FIELD);
+        }
+        return fields.equals(List.of(NO_FIELDS)) ? List.of() : fields;
+    }
+
+    private void validateHnswEf(Integer hnswEf) {
+        if (hnswEf != null && hnswEf <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'hnswEf' must be positive");
+        }
+    }
+
+    private void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            log.warn("Unable to close the request body", e);
+        }
+    }
+
+    private List<EmbeddingSearchItem> mapMatchesToSearchItem(List<VectorMatch> matches, Integer snippetLength) {
+        var embeddingSearchItemList = new ArrayList<EmbeddingSearchItem>(matches.size());
+        for (VectorMatch match : matches) {
+            String text = null;
+            Map<String, Object> metadata = null;
+            for (var field : match.payload().entrySet()) {
+                if (TEXT_FIELD.equals(field.getKey())) {
+                    text = toSnippet(String.valueOf(field.getValue()), snippetLength);
+                } else {
+                    if (metadata == null) {
+                        metadata = new HashMap<>();
+                    }
+                    metadata.put(field.getKey(), field.getValue());
+                }
+            }
+            embeddingSearchItemList.add(new EmbeddingSearchItem(match.id(), match.score(), text, metadata));
+        }
         return embeddingSearchItemList;
     }
+
+    private static String toSnippet(String text, Integer snippetLength) {
+        if (snippetLength == null || text.length() <= snippetLength) {
+            return text;
+        }
+        int end = Character.isHighSurrogate(text.charAt(snippetLength - 1)) ? snippetLength - 1 : snippetLength;
+        return text.substring(0, end);
+    }
 }
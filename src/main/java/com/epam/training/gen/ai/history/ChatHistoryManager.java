@@ -0,0 +1,158 @@
+package com.epam.training.gen.ai.history;
+
+import com.epam.training.gen.ai.chunking.TokenCounter;
+import com.epam.training.gen.ai.configuration.ChatHistoryProperties;
+import com.epam.training.gen.ai.configuration.ClientOpenAiProperties;
+import com.epam.training.gen.ai.routing.DeploymentRateLimiter;
+import com.epam.training.gen.ai.service.ChatModelRegistry;
+import com.microsoft.semantickernel.orchestration.InvocationContext;
+import com.microsoft.semantickernel.orchestration.PromptExecutionSettings;
+import com.microsoft.semantickernel.services.chatcompletion.ChatHistory;
+import com.microsoft.semantickernel.services.chatcompletion.ChatMessageContent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the chat history sent with every prompt within a token budget.
+ * <p>
+ * The history is made of the pinned system messages, the summary of the older turns and as many of the latest
+ * turns as fit in the budget. Once a conversation holds more than {@code keep-turns} turns, the older ones are
+ * folded into the summary by the chat model, in the background: the request that triggers it does not wait, and
+ * until the summary completes the turns that do not fit are left out of the history.
+ */
+@Slf4j
+@Component
+public class ChatHistoryManager {
+    private static final String SUMMARY_PREFIX = "Summary of the earlier conversation:\n";
+    // role and separators the chat models add to every message
+    private static final int MESSAGE_OVERHEAD = 4;
+
+    private final ChatModelRegistry chatModelRegistry;
+    private final TokenCounter tokenCounter;
+    private final DeploymentRateLimiter rateLimiter;
+    private final ChatHistoryProperties properties;
+    private final InvocationContext summaryContext;
+
+    public ChatHistoryManager(ChatModelRegistry chatModelRegistry, TokenCounter tokenCounter,
+                              DeploymentRateLimiter rateLimiter, ClientOpenAiProperties clientOpenAiProperties) {
+        this.chatModelRegistry = chatModelRegistry;
+        this.tokenCounter = tokenCounter;
+        this.rateLimiter = rateLimiter;
+        this.properties = clientOpenAiProperties.application().history();
+        this.summaryContext = InvocationContext.builder()
+                .withPromptExecutionSettings(PromptExecutionSettings.builder()
+                        .withTemperature(0)
+                        .withMaxTokens(properties.summaryMaxTokens())
+                        .build())
+                .build();
+    }
+
+    /**
+     * Pins a system message to the conversation, it is sent first with every prompt. Pinning the same message
+     * again has no effect.
+     *
+     * @param conversation the conversation
+     * @param message      the system message
+     */
+    public void pin(Conversation conversation, String message) {
+        conversation.pin(message);
+    }
+
+    /**
+     * Builds the history to send with a prompt. The prompt itself is not added, but its tokens count within the
+     * budget.
+     *
+     * @param conversation the conversation
+     * @param userPrompt   the prompt to send next
+     * @return the history within the token budget
+     */
+    public ChatHistory history(Conversation conversation, String userPrompt) {
+        Conversation.Snapshot snapshot = conversation.snapshot();
+        var history = new ChatHistory();
+        int budget = properties.maxTokens() - tokens(userPrompt);
+
+        for (String message : snapshot.systemMessages()) {
+            history.addSystemMessage(message);
+            budget -= tokens(message);
+        }
+        if (snapshot.summary() != null) {
+            String summary = SUMMARY_PREFIX + snapshot.summary();
+            history.addSystemMessage(summary);
+            budget -= tokens(summary);
+        }
+
+        var turns = snapshot.turns();
+        int first = turns.size();
+        while (first > 0 && turns.get(first - 1).tokens() <= budget) {
+            budget -= turns.get(--first).tokens();
+        }
+        if (first > 0) {
+            log.debug("{} turns do not fit in the history budget of {} tokens", first, properties.maxTokens());
+        }
+        for (Conversation.Turn turn : turns.subList(first, turns.size())) {
+            history.addUserMessage(turn.user());
+            history.addAssistantMessage(turn.assistant());
+        }
+        return history;
+    }
+
+    /**
+     * Adds a completed turn to the conversation, and starts folding the older turns into the summary if needed.
+     *
+     * @param conversation the conversation
+     * @param model        the model that answered, it also writes the summary
+     * @param userPrompt   the user prompt
+     * @param response     the assistant response
+     */
+    public void record(Conversation conversation, String model, String userPrompt, String response) {
+        conversation.addTurn(new Conversation.Turn(userPrompt, response, tokens(userPrompt) + tokens(response)));
+
+        Conversation.Snapshot folded = conversation.startSummary(properties.keepTurns());
+        if (folded != null) {
+            summarize(conversation, model, folded);
+        }
+    }
+
+    private void summarize(Conversation conversation, String model, Conversation.Snapshot folded) {
+        var transcript = new StringBuilder();
+        if (folded.summary() != null) {
+            transcript.append(SUMMARY_PREFIX).append(folded.summary()).append("\n\n");
+        }
+        folded.turns().forEach(turn -> transcript
+                .append("User: ").append(turn.user()).append('\n')
+                .append("Assistant: ").append(turn.assistant()).append('\n'));
+
+        var prompt = new ChatHistory();
+        prompt.addSystemMessage("Summarize the conversation below so the assistant can go on with it. Keep the "
+                + "facts, names, numbers, decisions and open questions. Reply with the summary only, in less than "
+                + properties.summaryMaxTokens() + " tokens.");
+        prompt.addUserMessage(transcript.toString());
+
+        rateLimiter.limit(model, tokens(transcript.toString()), () -> chatModelRegistry.chatCompletionService(model)
+                        .getChatMessageContentsAsync(prompt, chatModelRegistry.kernel(model), summaryContext))
+                .map(messages -> messages.stream()
+                        .map(ChatMessageContent::getContent)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.joining("\n")))
+                .defaultIfEmpty("")
+                .subscribe(summary -> {
+                            if (summary.isBlank()) {
+                                log.warn("Summary of {} turns came back empty", folded.turns().size());
+                                conversation.abortSummary();
+                            } else {
+                                conversation.completeSummary(summary, folded.turns().size());
+                            }
+                        },
+                        error -> {
+                            log.warn("Summary of {} turns failed: {}", folded.turns().size(), error.getMessage());
+                            conversation.abortSummary();
+                        });
+    }
+
+    private int tokens(String message) {
+        return tokenCounter.count(message) + MESSAGE_OVERHEAD;
+    }
+}
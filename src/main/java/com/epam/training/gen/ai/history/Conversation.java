@@ -0,0 +1,211 @@
+package com.epam.training.gen.ai.history;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * State of a chat conversation: the pinned system messages, the summary of the older turns and the latest turns
+ * kept verbatim.
+ * <p>
+ * The turns are only appended, and only the summary folds the oldest ones away, so a summary that completes while
+ * new turns arrive removes exactly the turns it covers. The methods are synchronized, the summary completes on
+ * another thread than the requests.
+ * <p>
+ * A conversation is encoded as the pinned system messages, the summary and the turns with their tokens, every
+ * string as its UTF-8 length and bytes. A summary in progress is not encoded, it is started again on a later turn.
+ */
+public class Conversation {
+    // object headers, references and fields held next to the characters of every string
+    private static final int STRING_OVERHEAD = 64;
+
+    private final Set<String> systemMessages = new LinkedHashSet<>();
+    private final List<Turn> turns = new ArrayList<>();
+    private String summary;
+    private boolean summarizing;
+
+    public Conversation() {
+    }
+
+    private Conversation(Snapshot snapshot) {
+        systemMessages.addAll(snapshot.systemMessages());
+        summary = snapshot.summary();
+        turns.addAll(snapshot.turns());
+    }
+
+    /**
+     * Decodes a conversation.
+     *
+     * @param buffer the encoded conversation, read from its position
+     * @return the conversation
+     */
+    public static Conversation decode(ByteBuffer buffer) {
+        var systemMessages = new ArrayList<String>();
+        for (int count = buffer.getInt(); count > 0; count--) {
+            systemMessages.add(getString(buffer));
+        }
+        String summary = getString(buffer);
+        var turns = new ArrayList<Turn>();
+        for (int count = buffer.getInt(); count > 0; count--) {
+            turns.add(new Turn(getString(buffer), getString(buffer), buffer.getInt()));
+        }
+        return new Conversation(new Snapshot(systemMessages, summary, turns));
+    }
+
+    /**
+     * Encodes the conversation.
+     *
+     * @return the encoded conversation
+     */
+    public byte[] encode() {
+        Snapshot snapshot = snapshot();
+        var strings = new ArrayList<byte[]>();
+        snapshot.systemMessages().forEach(message -> strings.add(utf8(message)));
+        strings.add(utf8(snapshot.summary()));
+        snapshot.turns().forEach(turn -> {
+            strings.add(utf8(turn.user()));
+            strings.add(utf8(turn.assistant()));
+        });
+
+        int size = 2 * Integer.BYTES + snapshot.turns().size() * Integer.BYTES;
+        for (byte[] string : strings) {
+            size += Integer.BYTES + (string == null ? 0 : string.length);
+        }
+        var buffer = ByteBuffer.allocate(size);
+        int next = 0;
+        buffer.putInt(snapshot.systemMessages().size());
+        for (int i = 0; i < snapshot.systemMessages().size(); i++) {
+            putString(buffer, strings.get(next++));
+        }
+        putString(buffer, strings.get(next++));
+        buffer.putInt(snapshot.turns().size());
+        for (Turn turn : snapshot.turns()) {
+            putString(buffer, strings.get(next++));
+            putString(buffer, strings.get(next++));
+            buffer.putInt(turn.tokens());
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Estimates the heap taken by the conversation.
+     *
+     * @return the size in bytes
+     */
+    public synchronized long estimateSize() {
+        long size = STRING_OVERHEAD + (summary == null ? 0 : 2L * summary.length());
+        for (String message : systemMessages) {
+            size += STRING_OVERHEAD + 2L * message.length();
+        }
+        for (Turn turn : turns) {
+            size += 2 * STRING_OVERHEAD + 2L * (turn.user().length() + turn.assistant().length());
+        }
+        return size;
+    }
+
+    /**
+     * Adds a system message, unless it is already pinned.
+     *
+     * @param message the system message
+     */
+    public synchronized void pin(String message) {
+        systemMessages.add(message);
+    }
+
+    /**
+     * Takes a consistent copy of the conversation.
+     *
+     * @return the copy
+     */
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(List.copyOf(systemMessages), summary, List.copyOf(turns));
+    }
+
+    /**
+     * Appends a completed turn.
+     *
+     * @param turn the turn
+     */
+    public synchronized void addTurn(Turn turn) {
+        turns.add(turn);
+    }
+
+    /**
+     * Starts folding the turns older than the latest ones into the summary, unless a summary is in progress.
+     *
+     * @param keepTurns amount of latest turns to keep verbatim
+     * @return the turns to fold with the current summary, null if there is nothing to do
+     */
+    public synchronized Snapshot startSummary(int keepTurns) {
+        if (summarizing || turns.size() <= keepTurns) {
+            return null;
+        }
+        summarizing = true;
+        return new Snapshot(List.of(), summary, List.copyOf(turns.subList(0, turns.size() - keepTurns)));
+    }
+
+    /**
+     * Replaces the folded turns with their summary.
+     *
+     * @param summary     the summary of the previous summary and the folded turns
+     * @param foldedTurns amount of turns the summary covers
+     */
+    public synchronized void completeSummary(String summary, int foldedTurns) {
+        this.summary = summary;
+        turns.subList(0, foldedTurns).clear();
+        summarizing = false;
+    }
+
+    /**
+     * Gives up a summary, the turns are folded on a later turn.
+     */
+    public synchronized void abortSummary() {
+        summarizing = false;
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(value.length).put(value);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        var value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    /**
+     * Question and answer of the conversation.
+     *
+     * @param user      the user prompt
+     * @param assistant the assistant response
+     * @param tokens    the tokens of both messages
+     */
+    public record Turn(String user, String assistant, int tokens) {
+    }
+
+    /**
+     * Copy of the conversation.
+     *
+     * @param systemMessages the pinned system messages
+     * @param summary        the summary of the older turns, null if none
+     * @param turns          the turns kept verbatim, oldest first
+     */
+    public record Snapshot(List<String> systemMessages, String summary, List<Turn> turns) {
+    }
+}
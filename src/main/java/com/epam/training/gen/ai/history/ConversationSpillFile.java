@@ -0,0 +1,223 @@
+package com.epam.training.gen.ai.history;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Append-only file holding the conversations evicted from memory.
+ * <p>
+ * Every record has the layout {@code [record size][id length][id][expires at][encoded conversation]}. The offsets of
+ * the live records are indexed in memory, and rebuilt by scanning the file when it is opened, the latest record of a
+ * conversation wins. A conversation read back into memory leaves its record behind as garbage; once the garbage
+ * outweighs the live records the file is compacted into a new one.
+ */
+@Slf4j
+class ConversationSpillFile implements Closeable {
+    private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+    private static final long MIN_COMPACTION_SIZE = 16L << 20;
+
+    private final Path path;
+    private final Map<String, Location> index = new HashMap<>();
+    private FileChannel channel;
+    private long size;
+    private long liveBytes;
+
+    ConversationSpillFile(Path path) throws IOException {
+        this.path = path;
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        loadIndex();
+    }
+
+    /**
+     * Appends a conversation.
+     *
+     * @param id           the conversation id
+     * @param conversation the conversation
+     * @param expiresAt    expiration time in milliseconds
+     */
+    synchronized void put(String id, Conversation conversation, long expiresAt) {
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        byte[] data = conversation.encode();
+        int recordSize = RECORD_HEADER_SIZE + idBytes.length + Long.BYTES + data.length;
+        var record = ByteBuffer.allocate(recordSize)
+                .putInt(recordSize).putInt(idBytes.length).put(idBytes).putLong(expiresAt).put(data)
+                .flip();
+        try {
+            write(channel, record, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Location previous = index.put(id, new Location(size, recordSize, expiresAt));
+        if (previous != null) {
+            liveBytes -= previous.size();
+        }
+        liveBytes += recordSize;
+        size += recordSize;
+    }
+
+    /**
+     * Reads a conversation back and removes it from the file.
+     *
+     * @param id  the conversation id
+     * @param now current time in milliseconds
+     * @return the conversation, null if it is not stored or already expired
+     */
+    synchronized Conversation take(String id, long now) {
+        Location location = index.remove(id);
+        if (location == null) {
+            return null;
+        }
+        liveBytes -= location.size();
+        Conversation conversation = null;
+        if (location.expiresAt() > now) {
+            try {
+                var record = ByteBuffer.allocate(location.size());
+                read(channel, record, location.offset());
+                record.flip();
+                record.position(RECORD_HEADER_SIZE + record.getInt(Integer.BYTES) + Long.BYTES);
+                conversation = Conversation.decode(record);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        compactIfNeeded(now);
+        return conversation;
+    }
+
+    /**
+     * Whether a conversation is stored.
+     *
+     * @param id  the conversation id
+     * @param now current time in milliseconds
+     * @return true if the conversation is stored and not expired
+     */
+    synchronized boolean contains(String id, long now) {
+        Location location = index.get(id);
+        return location != null && location.expiresAt() > now;
+    }
+
+    /**
+     * Amount of conversations stored.
+     *
+     * @return the amount of live records
+     */
+    synchronized int size() {
+        return index.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.force(true);
+        channel.close();
+    }
+
+    private void loadIndex() throws IOException {
+        long fileSize = channel.size();
+        long now = System.currentTimeMillis();
+        var header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        long position = 0;
+        while (position + RECORD_HEADER_SIZE <= fileSize) {
+            header.clear();
+            read(channel, header, position);
+            int recordSize = header.getInt(0);
+            int idLength = header.getInt(Integer.BYTES);
+            if (recordSize < RECORD_HEADER_SIZE + idLength + Long.BYTES || idLength < 0
+                    || position + recordSize > fileSize) {
+                log.warn("Conversation spill file {} is truncated at {} bytes", path, position);
+                break;
+            }
+            var key = ByteBuffer.allocate(idLength + Long.BYTES);
+            read(channel, key, position + RECORD_HEADER_SIZE);
+            String id = new String(key.array(), 0, idLength, StandardCharsets.UTF_8);
+            long expiresAt = key.getLong(idLength);
+
+            Location previous = index.remove(id);
+            if (previous != null) {
+                liveBytes -= previous.size();
+            }
+            if (expiresAt > now) {
+                index.put(id, new Location(position, recordSize, expiresAt));
+                liveBytes += recordSize;
+            }
+            position += recordSize;
+        }
+        size = position;
+        channel.truncate(size);
+        log.info("Conversation spill file loaded with {} conversations", index.size());
+        compactIfNeeded(now);
+    }
+
+    /**
+     * Rewrites the live records into a new file once the garbage outweighs them.
+     */
+    private void compactIfNeeded(long now) {
+        if (size < MIN_COMPACTION_SIZE || size - liveBytes < liveBytes) {
+            return;
+        }
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            var compacted = new HashMap<String, Location>(index.size());
+            long position = 0;
+            try (var target = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (Map.Entry<String, Location> entry : index.entrySet()) {
+                    Location location = entry.getValue();
+                    if (location.expiresAt() <= now) {
+                        continue;
+                    }
+                    var record = ByteBuffer.allocate(location.size());
+                    read(channel, record, location.offset());
+                    record.flip();
+                    write(target, record, position);
+                    compacted.put(entry.getKey(), new Location(position, location.size(), location.expiresAt()));
+                    position += location.size();
+                }
+                target.force(true);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel.close();
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            log.info("Conversation spill file compacted from {} to {} bytes", size, position);
+
+            index.clear();
+            index.putAll(compacted);
+            size = position;
+            liveBytes = position;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void read(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of the conversation spill file");
+            }
+        }
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private record Location(long offset, int size, long expiresAt) {
+    }
+}
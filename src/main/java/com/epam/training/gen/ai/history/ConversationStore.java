@@ -0,0 +1,251 @@
+package com.epam.training.gen.ai.history;
+
+import com.epam.training.gen.ai.configuration.ClientOpenAiProperties;
+import com.epam.training.gen.ai.configuration.ConversationStoreProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Holds the chat conversations by conversation id, within a memory budget.
+ * <p>
+ * The conversations live in an LRU ordered by last use. The size of a conversation is estimated every time it is
+ * used; while the estimated total is over the budget, the least recently used conversations are evicted. The evicted
+ * conversations are spilled to a local append-only file and read back the next time they are used, so only the
+ * active ones take heap. The conversations not used for longer than the TTL are dropped, from memory and from the
+ * file. On shutdown the conversations in memory are spilled too, so they survive a restart.
+ * <p>
+ * The spill file is only read and written outside the lock of the conversations in memory. A conversation being
+ * spilled is still found in memory until it is written, and the requests for a conversation being read back wait for
+ * that single read.
+ * <p>
+ * A conversation evicted while a request or its summary still runs keeps the changes of that request in the
+ * evicted instance only, which a small budget may cause under heavy load.
+ */
+@Slf4j
+@Component
+public class ConversationStore {
+    private final long ttlMillis;
+    private final long memoryBudget;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Entry> spilling = new HashMap<>();
+    private final Map<String, CompletableFuture<Conversation>> loading = new HashMap<>();
+    private final ConversationSpillFile spillFile;
+    private long memoryUsed;
+
+    public ConversationStore(ClientOpenAiProperties clientOpenAiProperties) throws IOException {
+        ConversationStoreProperties properties = clientOpenAiProperties.application().conversations();
+        this.ttlMillis = properties.ttl() == null ? Long.MAX_VALUE : properties.ttl().toMillis();
+        this.memoryBudget = properties.memoryBudget().toBytes();
+        this.spillFile = StringUtils.isNotBlank(properties.spillPath())
+                ? new ConversationSpillFile(Path.of(properties.spillPath()))
+                : null;
+    }
+
+    /**
+     * Returns the conversation with the given id, read back from the spill file or created if needed.
+     *
+     * @param id the conversation id
+     * @return the conversation
+     */
+    public Conversation get(String id) {
+        long now = System.currentTimeMillis();
+        var evicted = new LinkedHashMap<String, Entry>();
+        Conversation conversation = null;
+        CompletableFuture<Conversation> load = null;
+        boolean loader = false;
+        synchronized (entries) {
+            Entry entry = entries.get(id);
+            if (entry != null && expiresAt(entry) <= now) {
+                entries.remove(id);
+                memoryUsed -= entry.size;
+                entry = null;
+            }
+            if (entry == null) {
+                Entry evictedEntry = spilling.remove(id);
+                if (evictedEntry != null) {
+                    // evicted but not written yet, the record being written is replaced on the next eviction
+                    entry = new Entry(evictedEntry.conversation);
+                    entries.put(id, entry);
+                } else if (spillFile == null) {
+                    entry = new Entry(new Conversation());
+                    entries.put(id, entry);
+                }
+            }
+            if (entry != null) {
+                conversation = use(id, entry, now, evicted);
+            } else {
+                load = loading.get(id);
+                if (load == null) {
+                    load = new CompletableFuture<>();
+                    loading.put(id, load);
+                    loader = true;
+                }
+            }
+        }
+        spill(evicted);
+        if (conversation != null) {
+            return conversation;
+        }
+        return loader ? load(id, load, now) : load.join();
+    }
+
+    /**
+     * Starts a new conversation with a random id.
+     *
+     * @return the id of the new conversation
+     */
+    public String create() {
+        String id = UUID.randomUUID().toString();
+        long now = System.currentTimeMillis();
+        var evicted = new LinkedHashMap<String, Entry>();
+        synchronized (entries) {
+            var entry = new Entry(new Conversation());
+            entries.put(id, entry);
+            use(id, entry, now, evicted);
+        }
+        spill(evicted);
+        return id;
+    }
+
+    /**
+     * Whether a conversation exists, in memory or in the spill file, and has not expired.
+     *
+     * @param id the conversation id
+     * @return true if the conversation exists
+     */
+    public boolean contains(String id) {
+        long now = System.currentTimeMillis();
+        if (inMemory(id, now)) {
+            return true;
+        }
+        // a conversation read back meanwhile is no longer in the file but in memory again
+        return spillFile != null && spillFile.contains(id, now) || inMemory(id, now);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (spillFile == null) {
+            return;
+        }
+        Map<String, Entry> remaining;
+        synchronized (entries) {
+            remaining = new LinkedHashMap<>(entries);
+            entries.clear();
+            memoryUsed = 0;
+        }
+        remaining.forEach((id, entry) -> spillFile.put(id, entry.conversation, expiresAt(entry)));
+        log.info("Spilled {} conversations on shutdown", remaining.size());
+        spillFile.close();
+    }
+
+    /**
+     * Reads a conversation back from the spill file, or creates it, while the other requests for the same id wait.
+     */
+    private Conversation load(String id, CompletableFuture<Conversation> load, long now) {
+        var evicted = new LinkedHashMap<String, Entry>();
+        Conversation conversation;
+        try {
+            Conversation spilled = spillFile.take(id, now);
+            synchronized (entries) {
+                loading.remove(id);
+                var entry = new Entry(spilled != null ? spilled : new Conversation());
+                entries.put(id, entry);
+                conversation = use(id, entry, now, evicted);
+            }
+        } catch (RuntimeException e) {
+            synchronized (entries) {
+                loading.remove(id);
+            }
+            load.completeExceptionally(e);
+            throw e;
+        }
+        load.complete(conversation);
+        spill(evicted);
+        return conversation;
+    }
+
+    /**
+     * Marks a conversation as used and updates its estimated size. Must be called while holding the lock.
+     */
+    private Conversation use(String id, Entry entry, long now, Map<String, Entry> evicted) {
+        entry.lastUsed = now;
+        long size = entry.conversation.estimateSize();
+        memoryUsed += size - entry.size;
+        entry.size = size;
+        evict(id, now, evicted);
+        return entry.conversation;
+    }
+
+    /**
+     * Drops the expired conversations and collects the least recently used ones to spill while over the budget. The
+     * conversation in use is never evicted. The collected conversations stay reachable until they are spilled.
+     */
+    private void evict(String current, long now, Map<String, Entry> evicted) {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            Entry entry = eldest.getValue();
+            boolean expired = expiresAt(entry) <= now;
+            if (eldest.getKey().equals(current) || !expired && memoryUsed <= memoryBudget) {
+                return;
+            }
+            iterator.remove();
+            memoryUsed -= entry.size;
+            if (!expired && spillFile != null) {
+                spilling.put(eldest.getKey(), entry);
+                evicted.put(eldest.getKey(), entry);
+            }
+        }
+    }
+
+    /**
+     * Appends the evicted conversations to the spill file, outside the lock of the conversations in memory.
+     */
+    private void spill(Map<String, Entry> evicted) {
+        evicted.forEach((id, entry) -> {
+            try {
+                spillFile.put(id, entry.conversation, expiresAt(entry));
+            } catch (UncheckedIOException e) {
+                log.warn("Could not spill conversation {}: {}", id, e.getMessage());
+            } finally {
+                synchronized (entries) {
+                    spilling.remove(id, entry);
+                }
+            }
+        });
+    }
+
+    private boolean inMemory(String id, long now) {
+        synchronized (entries) {
+            Entry entry = entries.get(id);
+            return entry != null && expiresAt(entry) > now || spilling.containsKey(id) || loading.containsKey(id);
+        }
+    }
+
+    private long expiresAt(Entry entry) {
+        long expiresAt = entry.lastUsed + ttlMillis;
+        return expiresAt < entry.lastUsed ? Long.MAX_VALUE : expiresAt;
+    }
+
+    private static final class Entry {
+        private final Conversation conversation;
+        private long lastUsed;
+        private long size;
+
+        private Entry(Conversation conversation) {
+            this.conversation = conversation;
+        }
+    }
+}
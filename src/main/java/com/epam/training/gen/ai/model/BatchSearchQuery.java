@@ -0,0 +1,13 @@
+package com.epam.training.gen.ai.model;
+
+/**
+ * API Model for a single query of a batch search.
+ *
+ * @param text           the text to search for
+ * @param limit          maximum amount of results, the configured limit is used when missing
+ * @param scoreThreshold minimum score of the results, all of them are returned when missing
+ * @param hnswEf         size of the candidate list while searching, the configured one is used when missing
+ * @param exact          whether every vector is compared instead of walking the index
+ */
+public record BatchSearchQuery(String text, Integer limit, Float scoreThreshold, Integer hnswEf, boolean exact) {
+}
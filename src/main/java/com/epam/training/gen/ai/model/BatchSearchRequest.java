@@ -0,0 +1,11 @@
+package com.epam.training.gen.ai.model;
+
+import java.util.List;
+
+/**
+ * API Model to run several semantic searches at once.
+ *
+ * @param queries the searches to run
+ */
+public record BatchSearchRequest(List<BatchSearchQuery> queries) {
+}
@@ -0,0 +1,12 @@
+package com.epam.training.gen.ai.model;
+
+import java.util.List;
+
+/**
+ * API Model with the results of a single query of a batch search.
+ *
+ * @param text  the text that was searched
+ * @param items the closest points, sorted by descending score
+ */
+public record BatchSearchResult(String text, List<EmbeddingSearchItem> items) {
+}
@@ -0,0 +1,14 @@
+package com.epam.training.gen.ai.model;
+
+/**
+ * Model to expose the embeddings cache metrics.
+ *
+ * @param hits      lookups served from heap
+ * @param diskHits  lookups served from the persistent tier
+ * @param misses    lookups that requested the embeddings to Azure OpenAI
+ * @param coalesced lookups that waited for an embeddings request already in progress
+ * @param evictions vectors removed from heap because of the size limit
+ * @param size      vectors currently kept in heap
+ */
+public record EmbeddingCacheStats(long hits, long diskHits, long misses, long coalesced, long evictions, int size) {
+}
@@ -1,7 +1,17 @@
 package com.epam.training.gen.ai.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Map;
+
 /**
  * Model to store the API embeddings response
+ *
+ * @param id       identifier of the point
+ * @param score    similarity with the query
+ * @param payload  the stored text, possibly cut to a snippet, omitted when it was not requested
+ * @param metadata the other requested payload fields, omitted when there are none
  */
-public record EmbeddingSearchItem(String id, float score, String payload) {
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record EmbeddingSearchItem(String id, float score, String payload, Map<String, Object> metadata) {
 }
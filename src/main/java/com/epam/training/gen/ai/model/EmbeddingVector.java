@@ -0,0 +1,10 @@
+package com.epam.training.gen.ai.model;
+
+/**
+ * Model to store the embeddings of a text.
+ *
+ * @param index     position of the text within the request
+ * @param embedding the vector values
+ */
+public record EmbeddingVector(int index, float[] embedding) {
+}
@@ -0,0 +1,24 @@
+package com.epam.training.gen.ai.model;
+
+/**
+ * Model to report the outcome of a single item from a bulk ingestion.
+ *
+ * @param index  position of the item within the request
+ * @param id     identifier of the stored or already existing point, null if it failed
+ * @param status final status of the item
+ * @param error  failure reason, null if it was stored
+ */
+public record IngestionItemResult(long index, String id, IngestionStatus status, String error) {
+
+    public static IngestionItemResult stored(long index, String id) {
+        return new IngestionItemResult(index, id, IngestionStatus.STORED, null);
+    }
+
+    public static IngestionItemResult skipped(long index, String id) {
+        return new IngestionItemResult(index, id, IngestionStatus.SKIPPED, null);
+    }
+
+    public static IngestionItemResult failed(long index, String error) {
+        return new IngestionItemResult(index, null, IngestionStatus.FAILED, error);
+    }
+}
@@ -0,0 +1,10 @@
+package com.epam.training.gen.ai.model;
+
+/**
+ * Final status of an item processed by the bulk ingestion.
+ */
+public enum IngestionStatus {
+    STORED,
+    SKIPPED,
+    FAILED
+}
@@ -0,0 +1,11 @@
+package com.epam.training.gen.ai.model;
+
+/**
+ * Model to expose the latency profile of a deployment used by the {@code auto} model.
+ *
+ * @param deployment     the deployment name
+ * @param requests       completions observed
+ * @param millisPerToken moving average of the latency per prompt and response token
+ */
+public record ModelProfile(String deployment, long requests, double millisPerToken) {
+}
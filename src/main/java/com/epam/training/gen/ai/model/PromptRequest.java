@@ -4,7 +4,8 @@ package com.epam.training.gen.ai.model;
  * Record to hold the user's prompt request
  *
  * @param input user's prompt
- * @param model AI model to use
+ * @param model AI model to use, {@code auto} to pick one by the prompt size and the observed latencies, the default
+ *              deployment if missing
  */
 public record PromptRequest(String input, String model) {
 }
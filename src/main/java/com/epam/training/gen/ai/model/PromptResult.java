@@ -0,0 +1,10 @@
+package com.epam.training.gen.ai.model;
+
+/**
+ * Model Record to handle a prompt response together with its origin.
+ *
+ * @param response the Azure OpenAI Assistance response to the prompt
+ * @param cacheHit whether the response was taken from the cache instead of the model
+ */
+public record PromptResult(ChatbotResponse response, boolean cacheHit) {
+}
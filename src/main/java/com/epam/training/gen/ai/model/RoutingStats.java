@@ -0,0 +1,12 @@
+package com.epam.training.gen.ai.model;
+
+/**
+ * Model to expose the deployment routing metrics.
+ *
+ * @param requests  completions routed to a deployment with backups
+ * @param hedged    completions that sent a hedged request to the backup deployment
+ * @param hedgeWins hedged requests that answered before the first request
+ * @param failovers completions that went to the backup deployment because the first one failed
+ */
+public record RoutingStats(long requests, long hedged, long hedgeWins, long failovers) {
+}
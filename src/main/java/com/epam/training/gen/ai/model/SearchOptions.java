@@ -0,0 +1,17 @@
+package com.epam.training.gen.ai.model;
+
+import java.util.List;
+
+/**
+ * API Model for the parameters of a semantic search.
+ *
+ * @param limit          maximum amount of results, the configured limit is used when missing
+ * @param offset         amount of best results skipped, to read the results one page at a time
+ * @param scoreThreshold minimum vector similarity of the results, all of them are returned when missing
+ * @param payloadFields  the payload fields returned, empty to return no payload
+ * @param hnswEf         size of the candidate list while searching, the configured one is used when missing
+ * @param exact          whether every vector is compared instead of walking the index
+ */
+public record SearchOptions(Integer limit, int offset, Float scoreThreshold, List<String> payloadFields,
+                            Integer hnswEf, boolean exact) {
+}
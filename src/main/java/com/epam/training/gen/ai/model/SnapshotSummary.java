@@ -0,0 +1,10 @@
+package com.epam.training.gen.ai.model;
+
+/**
+ * Model to report the outcome of a snapshot export or import.
+ *
+ * @param name    the snapshot file name
+ * @param records amount of records written to or read from the snapshot
+ */
+public record SnapshotSummary(String name, long records) {
+}
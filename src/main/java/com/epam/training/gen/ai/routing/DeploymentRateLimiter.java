@@ -0,0 +1,354 @@
+package com.epam.training.gen.ai.routing;
+
+import com.azure.core.exception.HttpResponseException;
+import com.azure.core.http.HttpHeaderName;
+import com.azure.core.http.HttpHeaders;
+import com.azure.core.util.DateTimeRfc1123;
+import com.epam.training.gen.ai.configuration.ClientOpenAiProperties;
+import com.epam.training.gen.ai.configuration.RateLimitProperties;
+import com.epam.training.gen.ai.configuration.RateLimitQuotaProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Paces the chat completions of every deployment within its requests and tokens per minute.
+ * <p>
+ * Every deployment has two token buckets refilled continuously, one for the requests and one for the tokens; a
+ * completion costs one request and its prompt tokens plus {@code max-tokens}, the same estimate Azure OpenAI uses.
+ * The buckets hold at most {@code burst} worth of their rate. A completion that does not fit waits in a queue of
+ * {@code max-queued} completions per deployment, in arrival order, for at most {@code max-wait}; the completions that
+ * do not fit in the queue or wait longer are rejected with {@link RateLimitExceededException}.
+ * <p>
+ * When Azure OpenAI still throttles a completion, the whole deployment pauses for the {@code Retry-After} it returns,
+ * or for an exponential backoff when it does not, with jitter so the waiting completions do not retry all at once.
+ * The completion is then retried up to {@code max-retries} times.
+ */
+@Slf4j
+@Component
+public class DeploymentRateLimiter {
+    private static final double NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+    private static final HttpHeaderName[] RETRY_AFTER_MS_HEADERS = {
+            HttpHeaderName.RETRY_AFTER_MS, HttpHeaderName.X_MS_RETRY_AFTER_MS};
+
+    private final RateLimitProperties properties;
+    private final int maxTokens;
+    private final Map<String, Limit> limits = new ConcurrentHashMap<>();
+
+    public DeploymentRateLimiter(ClientOpenAiProperties clientOpenAiProperties) {
+        this.properties = clientOpenAiProperties.application().rateLimit();
+        this.maxTokens = clientOpenAiProperties.genAi().maxTokens();
+    }
+
+    /**
+     * Sends a completion once its deployment has room for it, retrying it when Azure OpenAI throttles it.
+     *
+     * @param deployment   the deployment the completion is sent to
+     * @param promptTokens the tokens of the prompt
+     * @param call         sends the completion, it is called once per attempt
+     * @param <T>          type of the response
+     * @return the response
+     */
+    public <T> Mono<T> limit(String deployment, int promptTokens, Supplier<Mono<T>> call) {
+        if (!properties.enabled()) {
+            return Mono.defer(call);
+        }
+        Limit limit = limits.computeIfAbsent(deployment, Limit::new);
+        return attempt(limit, promptTokens + maxTokens, call, 0);
+    }
+
+    /**
+     * Sends a streamed completion once its deployment has room for it. It is retried when Azure OpenAI throttles it
+     * before the first piece, a stream is never restarted once a piece was emitted.
+     *
+     * @param deployment   the deployment the completion is sent to
+     * @param promptTokens the tokens of the prompt
+     * @param call         sends the completion, it is called once per attempt
+     * @param <T>          type of the pieces of the response
+     * @return the pieces of the response
+     */
+    public <T> Flux<T> limitMany(String deployment, int promptTokens, Supplier<Flux<T>> call) {
+        if (!properties.enabled()) {
+            return Flux.defer(call);
+        }
+        Limit limit = limits.computeIfAbsent(deployment, Limit::new);
+        return attemptMany(limit, promptTokens + maxTokens, call, 0);
+    }
+
+    private <T> Mono<T> attempt(Limit limit, int cost, Supplier<Mono<T>> call, int attempt) {
+        return limit.acquire(cost)
+                .then(Mono.defer(call))
+                .onErrorResume(DeploymentRateLimiter::isThrottled, error -> retry(limit, error, attempt)
+                        .then(Mono.defer(() -> attempt(limit, cost, call, attempt + 1))));
+    }
+
+    private <T> Flux<T> attemptMany(Limit limit, int cost, Supplier<Flux<T>> call, int attempt) {
+        return Flux.defer(() -> {
+            var emitted = new AtomicBoolean();
+            return limit.acquire(cost)
+                    .thenMany(Flux.defer(call))
+                    .doOnNext(piece -> emitted.set(true))
+                    .onErrorResume(error -> !emitted.get() && isThrottled(error), error -> retry(limit, error, attempt)
+                            .thenMany(Flux.defer(() -> attemptMany(limit, cost, call, attempt + 1))));
+        });
+    }
+
+    /**
+     * Pauses the deployment after a throttled completion.
+     *
+     * @return an empty {@link Mono} if the completion can be retried, the error to fail it with otherwise
+     */
+    private Mono<Void> retry(Limit limit, Throwable error, int attempt) {
+        Duration delay = retryDelay(error, attempt);
+        limit.pause(delay);
+        if (attempt >= properties.maxRetries()) {
+            return Mono.error(new RateLimitExceededException("The deployment " + limit.deployment
+                    + " is over its rate limit", delay, error));
+        }
+        log.warn("Deployment {} throttled the completion, retrying in {} ms", limit.deployment, delay.toMillis());
+        return Mono.empty();
+    }
+
+    /**
+     * Computes the pause after a throttled completion: the delay Azure OpenAI asked for, or an exponential backoff,
+     * plus up to a fourth of it as jitter.
+     */
+    private Duration retryDelay(Throwable error, int attempt) {
+        Duration delay = retryAfter(error);
+        if (delay == null) {
+            delay = properties.initialBackoff().multipliedBy(1L << Math.min(attempt, 16));
+        }
+        if (delay.compareTo(properties.maxBackoff()) > 0) {
+            delay = properties.maxBackoff();
+        }
+        long jitter = ThreadLocalRandom.current().nextLong(delay.toMillis() / 4 + 1);
+        return delay.plusMillis(jitter);
+    }
+
+    static boolean isThrottled(Throwable error) {
+        HttpResponseException http = httpError(error);
+        return http != null && http.getResponse().getStatusCode() == 429;
+    }
+
+    private static HttpResponseException httpError(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpResponseException http && http.getResponse() != null) {
+                return http;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the delay Azure OpenAI asks to wait, from the {@code retry-after-ms}, {@code x-ms-retry-after-ms} or
+     * {@code Retry-After} headers.
+     *
+     * @return the delay, null if the response does not tell
+     */
+    private static Duration retryAfter(Throwable error) {
+        HttpResponseException http = httpError(error);
+        if (http == null) {
+            return null;
+        }
+        HttpHeaders headers = http.getResponse().getHeaders();
+        try {
+            for (HttpHeaderName name : RETRY_AFTER_MS_HEADERS) {
+                String value = headers.getValue(name);
+                if (value != null) {
+                    return Duration.ofMillis(Long.parseLong(value.trim()));
+                }
+            }
+            String value = headers.getValue(HttpHeaderName.RETRY_AFTER);
+            if (value == null) {
+                return null;
+            }
+            if (value.trim().chars().allMatch(Character::isDigit)) {
+                return Duration.ofSeconds(Long.parseLong(value.trim()));
+            }
+            Duration until = Duration.between(OffsetDateTime.now(), new DateTimeRfc1123(value.trim()).getDateTime());
+            return until.isNegative() ? Duration.ZERO : until;
+        } catch (RuntimeException e) {
+            log.debug("Unreadable retry delay in the throttled response: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Buckets and queue of a deployment.
+     */
+    private final class Limit {
+        private final String deployment;
+        private final double requestsPerNano;
+        private final double tokensPerNano;
+        private final double requestCapacity;
+        private final double tokenCapacity;
+        private final Deque<Waiter> waiting = new ArrayDeque<>();
+
+        private double requests;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+        private long pausedUntil = refilledAt;
+        private boolean drainScheduled;
+
+        Limit(String deployment) {
+            this.deployment = deployment;
+            RateLimitQuotaProperties quota = properties.deployments().getOrDefault(deployment, properties.defaults());
+            double burstMinutes = properties.burst().toNanos() / NANOS_PER_MINUTE;
+            this.requestsPerNano = quota.requestsPerMinute() / NANOS_PER_MINUTE;
+            this.tokensPerNano = quota.tokensPerMinute() / NANOS_PER_MINUTE;
+            this.requestCapacity = Math.max(1, quota.requestsPerMinute() * burstMinutes);
+            this.tokenCapacity = Math.max(1, quota.tokensPerMinute() * burstMinutes);
+            this.requests = requestCapacity;
+            this.tokens = tokenCapacity;
+        }
+
+        Mono<Void> acquire(int cost) {
+            return Mono.create(sink -> {
+                synchronized (this) {
+                    long now = System.nanoTime();
+                    refill(now);
+                    if (waiting.isEmpty() && tryTake(cost, now)) {
+                        sink.success();
+                        return;
+                    }
+                    if (waiting.size() >= properties.maxQueued()) {
+                        sink.error(new RateLimitExceededException("Too many completions waiting for the deployment "
+                                + deployment, Duration.ofNanos(waitNanos(cost, now))));
+                        return;
+                    }
+                    var waiter = new Waiter(cost, sink);
+                    waiting.add(waiter);
+                    waiter.timeout = Schedulers.parallel().schedule(() -> expire(waiter),
+                            properties.maxWait().toMillis(), TimeUnit.MILLISECONDS);
+                    sink.onCancel(() -> cancel(waiter));
+                    scheduleDrain(now);
+                }
+            });
+        }
+
+        void pause(Duration delay) {
+            synchronized (this) {
+                long until = System.nanoTime() + delay.toNanos();
+                if (until - pausedUntil > 0) {
+                    pausedUntil = until;
+                }
+            }
+        }
+
+        private void drain() {
+            var ready = new ArrayList<Waiter>();
+            synchronized (this) {
+                drainScheduled = false;
+                long now = System.nanoTime();
+                refill(now);
+                while (!waiting.isEmpty() && tryTake(waiting.peek().cost, now)) {
+                    ready.add(waiting.poll());
+                }
+                scheduleDrain(now);
+            }
+            ready.forEach(waiter -> {
+                waiter.timeout.dispose();
+                waiter.sink.success();
+            });
+        }
+
+        private void expire(Waiter waiter) {
+            long wait;
+            synchronized (this) {
+                if (!waiting.remove(waiter)) {
+                    return;
+                }
+                wait = waitNanos(waiter.cost, System.nanoTime());
+            }
+            waiter.sink.error(new RateLimitExceededException("The completion waited too long for the deployment "
+                    + deployment, Duration.ofNanos(wait)));
+            drain();
+        }
+
+        private void cancel(Waiter waiter) {
+            boolean removed;
+            synchronized (this) {
+                removed = waiting.remove(waiter);
+            }
+            if (removed) {
+                waiter.timeout.dispose();
+                drain();
+            }
+        }
+
+        /**
+         * Schedules the next drain for the time the first waiting completion fits.
+         */
+        private void scheduleDrain(long now) {
+            if (waiting.isEmpty() || drainScheduled) {
+                return;
+            }
+            drainScheduled = true;
+            long delay = Math.max(TimeUnit.MILLISECONDS.toNanos(1), waitNanos(waiting.peek().cost, now));
+            Schedulers.parallel().schedule(this::drain, delay, TimeUnit.NANOSECONDS);
+        }
+
+        private void refill(long now) {
+            long elapsed = now - refilledAt;
+            refilledAt = now;
+            requests = Math.min(requestCapacity, requests + elapsed * requestsPerNano);
+            tokens = Math.min(tokenCapacity, tokens + elapsed * tokensPerNano);
+        }
+
+        private boolean tryTake(int cost, long now) {
+            double tokenCost = Math.min(cost, tokenCapacity);
+            if (pausedUntil - now > 0
+                    || requestsPerNano > 0 && requests < 1
+                    || tokensPerNano > 0 && tokens < tokenCost) {
+                return false;
+            }
+            requests -= 1;
+            tokens -= tokenCost;
+            return true;
+        }
+
+        /**
+         * Estimates how long a completion waits until it fits, not counting the completions ahead of it.
+         */
+        private long waitNanos(int cost, long now) {
+            double wait = Math.max(0, pausedUntil - now);
+            if (requestsPerNano > 0) {
+                wait = Math.max(wait, (1 - requests) / requestsPerNano);
+            }
+            if (tokensPerNano > 0) {
+                wait = Math.max(wait, (Math.min(cost, tokenCapacity) - tokens) / tokensPerNano);
+            }
+            return (long) Math.ceil(wait);
+        }
+    }
+
+    /**
+     * Completion waiting for room in the buckets of its deployment.
+     */
+    private static final class Waiter {
+        private final int cost;
+        private final MonoSink<Void> sink;
+        private Disposable timeout;
+
+        Waiter(int cost, MonoSink<Void> sink) {
+            this.cost = cost;
+            this.sink = sink;
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.epam.training.gen.ai.routing;
+
+import com.azure.core.exception.HttpResponseException;
+import com.epam.training.gen.ai.configuration.ClientOpenAiProperties;
+import com.epam.training.gen.ai.configuration.RoutingProperties;
+import com.epam.training.gen.ai.model.RoutingStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.SignalType;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Sends the chat completions of a deployment to its backup deployments when it is slow or failing.
+ * <p>
+ * A request that fails with a throttling ({@code 429}), a server error ({@code 5xx}), a timeout or an I/O error, or
+ * that the local rate limiter rejects, is sent to the next backup deployment. A request still running after the
+ * configured latency percentile of its deployment is hedged: the same request goes to the first backup deployment,
+ * the first answer wins and the other request is cancelled. The hedged requests are limited by a budget that refills
+ * by {@code hedge-budget} per request, so a slow deployment at most raises the load by that share.
+ * <p>
+ * Streamed requests only fail over, and only before their first piece. The requests whose tools change state, like
+ * the inventory chat, are not routed at all: a hedge or a failover could run the same tool call twice.
+ */
+@Slf4j
+@Component
+public class DeploymentRouter {
+    private static final int MIN_SAMPLES = 20;
+    private static final double MAX_HEDGE_BURST = 10;
+
+    private final RoutingProperties properties;
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+    private final Object budgetLock = new Object();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hedged = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder failovers = new LongAdder();
+
+    private double hedgeCredits;
+
+    public DeploymentRouter(ClientOpenAiProperties clientOpenAiProperties) {
+        this.properties = clientOpenAiProperties.application().routing();
+    }
+
+    /**
+     * Sends a request to a deployment, or to its backups when it is slow or failing.
+     *
+     * @param deployment the deployment to send the request to
+     * @param call       sends the request to the given deployment, it is called once per deployment tried
+     * @param <T>        type of the response
+     * @return the response of the first deployment that answers
+     */
+    public <T> Mono<T> route(String deployment, Function<String, Mono<T>> call) {
+        List<String> backups = properties.enabled()
+                ? properties.groups().getOrDefault(deployment, List.of())
+                : List.of();
+        if (backups.isEmpty()) {
+            return Mono.defer(() -> call.apply(deployment));
+        }
+        return Mono.defer(() -> {
+            requests.increment();
+            refillHedgeBudget();
+            Mono<T> failover = Mono.defer(() -> failover(backups, 0, call));
+            return hedge(deployment, failover, call);
+        });
+    }
+
+    /**
+     * Sends a streamed request to a deployment, or to its backups when it fails before its first piece. Once a piece
+     * is emitted the stream stays on its deployment, and streams are never hedged.
+     *
+     * @param deployment the deployment to send the request to
+     * @param call       sends the request to the given deployment, it is called once per deployment tried
+     * @param <T>        type of the pieces of the response
+     * @return the pieces of the response of the first deployment that answers
+     */
+    public <T> Flux<T> routeMany(String deployment, Function<String, Flux<T>> call) {
+        List<String> backups = properties.enabled()
+                ? properties.groups().getOrDefault(deployment, List.of())
+                : List.of();
+        if (backups.isEmpty()) {
+            return Flux.defer(() -> call.apply(deployment));
+        }
+        return Flux.defer(() -> {
+            requests.increment();
+            return failoverMany(deployment, backups, 0, call);
+        });
+    }
+
+    public RoutingStats stats() {
+        return new RoutingStats(requests.sum(), hedged.sum(), hedgeWins.sum(), failovers.sum());
+    }
+
+    /**
+     * Sends the request to the deployment and, once it is slower than usual or fails, to the backups.
+     */
+    private <T> Mono<T> hedge(String deployment, Mono<T> backup, Function<String, Mono<T>> call) {
+        return Mono.create(sink -> {
+            var race = new Race<>(deployment, sink, backup);
+            sink.onDispose(race.subscriptions);
+            race.subscriptions.add(timed(deployment, call).subscribe(race::primaryAnswered, race::primaryFailed,
+                    () -> race.primaryAnswered(null)));
+            race.subscriptions.add(Mono.delay(hedgeDelay(deployment)).subscribe(tick -> race.hedge()));
+        });
+    }
+
+    /**
+     * Sends the request to the backups in order, moving on to the next one on a retryable error.
+     */
+    private <T> Mono<T> failover(List<String> backups, int index, Function<String, Mono<T>> call) {
+        String deployment = backups.get(index);
+        Mono<T> response = timed(deployment, call);
+        if (index + 1 == backups.size()) {
+            return response;
+        }
+        return response.onErrorResume(DeploymentRouter::isRetryable, error -> {
+            log.warn("Deployment {} failed, trying {}: {}", deployment, backups.get(index + 1), error.getMessage());
+            failovers.increment();
+            return failover(backups, index + 1, call);
+        });
+    }
+
+    /**
+     * Sends the streamed request to the deployment, then to the backups in order while the error is retryable and
+     * nothing was emitted yet.
+     */
+    private <T> Flux<T> failoverMany(String deployment, List<String> backups, int index,
+                                     Function<String, Flux<T>> call) {
+        if (index == backups.size()) {
+            return Flux.defer(() -> call.apply(deployment));
+        }
+        return Flux.defer(() -> {
+            var emitted = new AtomicBoolean();
+            return call.apply(deployment)
+                    .doOnNext(piece -> emitted.set(true))
+                    .onErrorResume(error -> !emitted.get() && isRetryable(error), error -> {
+                        log.warn("Deployment {} failed, trying {}: {}", deployment, backups.get(index),
+                                error.getMessage());
+                        failovers.increment();
+                        return failoverMany(backups.get(index), backups, index + 1, call);
+                    });
+        });
+    }
+
+    /**
+     * Sends the request to a deployment and records its latency. A request cancelled because another deployment
+     * answered first is recorded with the time it ran, which is less than its latency would have been, so a
+     * deployment that keeps losing the hedges still raises its percentile.
+     */
+    private <T> Mono<T> timed(String deployment, Function<String, Mono<T>> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call.apply(deployment)
+                    .doFinally(signal -> {
+                        if (signal == SignalType.ON_COMPLETE || signal == SignalType.CANCEL) {
+                            latencies.computeIfAbsent(deployment, key -> new LatencyWindow(properties.latencyWindow()))
+                                    .record(System.nanoTime() - start);
+                        }
+                    });
+        });
+    }
+
+    private Duration hedgeDelay(String deployment) {
+        Duration minimum = properties.minHedgeDelay();
+        LatencyWindow window = latencies.get(deployment);
+        long percentile = window == null ? -1 : window.percentile(properties.hedgePercentile(), MIN_SAMPLES);
+        return percentile < minimum.toNanos() ? minimum : Duration.ofNanos(percentile);
+    }
+
+    private void refillHedgeBudget() {
+        synchronized (budgetLock) {
+            hedgeCredits = Math.min(MAX_HEDGE_BURST, hedgeCredits + properties.hedgeBudget());
+        }
+    }
+
+    private boolean takeHedgeCredit() {
+        synchronized (budgetLock) {
+            if (hedgeCredits < 1) {
+                return false;
+            }
+            hedgeCredits--;
+            return true;
+        }
+    }
+
+    /**
+     * Whether another deployment may answer a request that failed with the given error. A request the
+     * {@link DeploymentRateLimiter} rejected because the deployment is saturated is retryable too.
+     */
+    static boolean isRetryable(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RateLimitExceededException) {
+                return true;
+            }
+            if (cause instanceof HttpResponseException http && http.getResponse() != null) {
+                int status = http.getResponse().getStatusCode();
+                return status == 429 || status >= 500;
+            }
+            if (cause instanceof TimeoutException || cause instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * State of a request sent to a deployment and maybe to its backups. The backups are sent at most once, either
+     * hedged or on failover, and the first answer completes the request and cancels the other one.
+     */
+    private final class Race<T> {
+        private final String deployment;
+        private final MonoSink<T> sink;
+        private final Mono<T> backup;
+        private final Disposable.Composite subscriptions = Disposables.composite();
+        private final List<Throwable> errors = new ArrayList<>(2);
+        private boolean settled;
+        private boolean primaryFailed;
+        private boolean backupStarted;
+        private boolean backupFailed;
+        private boolean backupHedged;
+
+        Race(String deployment, MonoSink<T> sink, Mono<T> backup) {
+            this.deployment = deployment;
+            this.sink = sink;
+            this.backup = backup;
+        }
+
+        void primaryAnswered(T response) {
+            synchronized (this) {
+                if (settled) {
+                    return;
+                }
+                settled = true;
+            }
+            sink.success(response);
+        }
+
+        void primaryFailed(Throwable error) {
+            boolean failover;
+            boolean fail;
+            synchronized (this) {
+                if (settled) {
+                    return;
+                }
+                primaryFailed = true;
+                errors.add(0, error);
+                failover = isRetryable(error) && !backupStarted;
+                fail = !isRetryable(error) || backupFailed;
+                backupStarted |= failover;
+                settled = fail;
+            }
+            if (fail) {
+                fail();
+            } else if (failover) {
+                log.warn("Deployment {} failed, trying its backup: {}", deployment, error.getMessage());
+                failovers.increment();
+                startBackup();
+            }
+        }
+
+        void hedge() {
+            synchronized (this) {
+                if (settled || backupStarted || !takeHedgeCredit()) {
+                    return;
+                }
+                backupStarted = true;
+                backupHedged = true;
+            }
+            hedged.increment();
+            startBackup();
+        }
+
+        private void startBackup() {
+            subscriptions.add(backup.subscribe(this::backupAnswered, this::backupFailed,
+                    () -> backupAnswered(null)));
+        }
+
+        private void backupAnswered(T response) {
+            boolean hedgeWon;
+            synchronized (this) {
+                if (settled) {
+                    return;
+                }
+                settled = true;
+                hedgeWon = backupHedged && !primaryFailed;
+            }
+            if (hedgeWon) {
+                hedgeWins.increment();
+            }
+            sink.success(response);
+        }
+
+        private void backupFailed(Throwable error) {
+            synchronized (this) {
+                if (settled) {
+                    return;
+                }
+                backupFailed = true;
+                errors.add(error);
+                if (!primaryFailed) {
+                    return;
+                }
+                settled = true;
+            }
+            fail();
+        }
+
+        /**
+         * Fails the request with the error of the deployment, the errors of its backups are suppressed.
+         */
+        private void fail() {
+            Throwable error = errors.get(0);
+            errors.subList(1, errors.size()).forEach(other -> {
+                if (other != error) {
+                    error.addSuppressed(other);
+                }
+            });
+            sink.error(error);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.epam.training.gen.ai.routing;
+
+/**
+ * Exponential moving average of the latency per token of a deployment. The latency of a request is assumed to grow
+ * with its prompt and response tokens, which holds well enough to compare the deployments with each other.
+ */
+class LatencyProfile {
+    private final double smoothing;
+    private long requests;
+    private double nanosPerToken;
+    private long updatedAt;
+
+    LatencyProfile(double smoothing) {
+        this.smoothing = Math.min(1, Math.max(0, smoothing));
+    }
+
+    synchronized void record(int tokens, long nanos) {
+        double sample = (double) nanos / Math.max(1, tokens);
+        nanosPerToken = requests == 0 ? sample : nanosPerToken + smoothing * (sample - nanosPerToken);
+        requests++;
+        updatedAt = System.nanoTime();
+    }
+
+    /**
+     * Predicts the latency of a request.
+     *
+     * @param tokens      the prompt and response tokens of the request
+     * @param staleBefore {@link System#nanoTime()} before which the profile is out of date
+     * @return the latency in nanoseconds, -1 if no request was observed yet or not since {@code staleBefore}
+     */
+    synchronized long predict(int tokens, long staleBefore) {
+        return requests == 0 || updatedAt - staleBefore < 0 ? -1 : (long) (nanosPerToken * tokens);
+    }
+
+    synchronized long requests() {
+        return requests;
+    }
+
+    synchronized double nanosPerToken() {
+        return nanosPerToken;
+    }
+}
@@ -0,0 +1,39 @@
+package com.epam.training.gen.ai.routing;
+
+import java.util.Arrays;
+
+/**
+ * The latest latencies of a deployment, to estimate its percentiles.
+ */
+class LatencyWindow {
+    private final long[] latencies;
+    private int next;
+    private int size;
+
+    LatencyWindow(int capacity) {
+        this.latencies = new long[Math.max(1, capacity)];
+    }
+
+    synchronized void record(long nanos) {
+        latencies[next] = nanos;
+        next = (next + 1) % latencies.length;
+        size = Math.min(size + 1, latencies.length);
+    }
+
+    /**
+     * Computes a percentile of the latencies.
+     *
+     * @param percentile the percentile, from 0 to 1
+     * @param minSamples amount of latencies needed for a meaningful percentile
+     * @return the latency in nanoseconds, -1 if there are not enough latencies yet
+     */
+    synchronized long percentile(double percentile, int minSamples) {
+        if (size < minSamples || size == 0) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(latencies, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * size) - 1;
+        return sorted[Math.max(0, Math.min(size - 1, index))];
+    }
+}
@@ -0,0 +1,167 @@
+package com.epam.training.gen.ai.routing;
+
+import com.epam.training.gen.ai.chunking.TokenCounter;
+import com.epam.training.gen.ai.configuration.AutoModelProperties;
+import com.epam.training.gen.ai.configuration.ClientOpenAiProperties;
+import com.epam.training.gen.ai.configuration.ModelTierProperties;
+import com.epam.training.gen.ai.model.ModelProfile;
+import com.microsoft.semantickernel.services.chatcompletion.ChatHistory;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves the model of a request to a deployment: a missing model is the default deployment, and the {@code auto}
+ * model is the cheapest deployment that fits the prompt and is expected to answer within the latency SLO.
+ * <p>
+ * The prompt goes to the smallest capability tier whose {@code max-prompt-tokens} it fits in, or to a larger tier
+ * when none of the deployments of that tier is fast enough. The latency of a deployment is predicted from the moving
+ * average of its latency per token. A deployment without a profile, or whose profile is older than
+ * {@code profile-ttl}, is expected to be fast enough, so a deployment that was slow for a while is tried again.
+ */
+@Slf4j
+@Component
+public class ModelRouter {
+    public static final String AUTO = "auto";
+
+    private final TokenCounter tokenCounter;
+    private final AutoModelProperties properties;
+    private final String defaultModel;
+    private final Map<String, LatencyProfile> profiles = new LinkedHashMap<>();
+
+    public ModelRouter(TokenCounter tokenCounter, ClientOpenAiProperties clientOpenAiProperties) {
+        this.tokenCounter = tokenCounter;
+        this.properties = clientOpenAiProperties.application().autoModel();
+        this.defaultModel = clientOpenAiProperties.clientOpenAiDeploymentName();
+        properties.tiers().stream()
+                .flatMap(tier -> tier.deployments().stream())
+                .forEach(deployment -> profiles.putIfAbsent(deployment, new LatencyProfile(properties.smoothing())));
+    }
+
+    /**
+     * Counts the tokens of a prompt.
+     *
+     * @param prompt the prompt
+     * @return the amount of tokens
+     */
+    public int promptTokens(CharSequence prompt) {
+        return prompt == null ? 0 : tokenCounter.count(prompt);
+    }
+
+    /**
+     * Counts the tokens of the messages of a chat history.
+     *
+     * @param history the chat history
+     * @return the amount of tokens
+     */
+    public int promptTokens(ChatHistory history) {
+        return history.getMessages().stream()
+                .mapToInt(message -> promptTokens(message.getContent()))
+                .sum();
+    }
+
+    /**
+     * Resolves the deployment of a request.
+     *
+     * @param model        the model of the request, either a deployment, {@code auto} or blank
+     * @param promptTokens the tokens of the prompt
+     * @return the deployment to send the request to
+     */
+    public String resolve(String model, int promptTokens) {
+        if (StringUtils.isBlank(model)) {
+            return defaultModel;
+        }
+        if (!AUTO.equalsIgnoreCase(model)) {
+            return model;
+        }
+        List<ModelTierProperties> tiers = properties.tiers();
+        if (tiers.isEmpty()) {
+            return defaultModel;
+        }
+
+        int first = 0;
+        while (first < tiers.size() - 1 && !fits(tiers.get(first), promptTokens)) {
+            first++;
+        }
+        int tokens = promptTokens + properties.expectedResponseTokens();
+        long slo = properties.latencySlo().toNanos();
+        long staleBefore = System.nanoTime() - properties.profileTtl().toNanos();
+        String fastest = null;
+        long fastestLatency = Long.MAX_VALUE;
+        for (ModelTierProperties tier : tiers.subList(first, tiers.size())) {
+            for (String deployment : tier.deployments()) {
+                long predicted = profiles.get(deployment).predict(tokens, staleBefore);
+                if (predicted < slo) {
+                    log.debug("Auto model picked {} for {} prompt tokens, predicted latency {} ms", deployment,
+                            promptTokens, predicted / 1_000_000);
+                    return deployment;
+                }
+                if (predicted < fastestLatency) {
+                    fastest = deployment;
+                    fastestLatency = predicted;
+                }
+            }
+        }
+        log.debug("No deployment is expected to meet the latency SLO for {} prompt tokens, picked {}",
+                promptTokens, fastest);
+        return fastest != null ? fastest : defaultModel;
+    }
+
+    /**
+     * Measures the latency of a completion to update the profile of its deployment.
+     *
+     * @param deployment   the deployment answering the completion
+     * @param promptTokens the tokens of the prompt
+     * @param response     the completion
+     * @return the completion
+     */
+    public Mono<String> observe(String deployment, int promptTokens, Mono<String> response) {
+        LatencyProfile profile = profiles.get(deployment);
+        if (profile == null) {
+            return response;
+        }
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return response.doOnSuccess(text -> profile.record(promptTokens + promptTokens(text),
+                    System.nanoTime() - start));
+        });
+    }
+
+    /**
+     * Measures the latency of a streamed completion, until its last piece, to update the profile of its deployment.
+     *
+     * @param deployment   the deployment answering the completion
+     * @param promptTokens the tokens of the prompt
+     * @param response     the pieces of the completion
+     * @return the pieces of the completion
+     */
+    public Flux<String> observe(String deployment, int promptTokens, Flux<String> response) {
+        LatencyProfile profile = profiles.get(deployment);
+        if (profile == null) {
+            return response;
+        }
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            var text = new StringBuilder();
+            return response.doOnNext(text::append)
+                    .doOnComplete(() -> profile.record(promptTokens + promptTokens(text), System.nanoTime() - start));
+        });
+    }
+
+    public List<ModelProfile> profiles() {
+        return profiles.entrySet().stream()
+                .map(entry -> new ModelProfile(entry.getKey(), entry.getValue().requests(),
+                        entry.getValue().nanosPerToken() / 1_000_000))
+                .toList();
+    }
+
+    private static boolean fits(ModelTierProperties tier, int promptTokens) {
+        return tier.maxPromptTokens() <= 0 || promptTokens <= tier.maxPromptTokens();
+    }
+}
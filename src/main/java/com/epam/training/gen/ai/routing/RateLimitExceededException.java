@@ -0,0 +1,36 @@
+package com.epam.training.gen.ai.routing;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+
+/**
+ * A completion that could not be sent within the rate limits of its deployment. It is answered with
+ * {@code 429 Too Many Requests} and a {@code Retry-After} header.
+ */
+public class RateLimitExceededException extends ResponseStatusException {
+    private final Duration retryAfter;
+
+    public RateLimitExceededException(String reason, Duration retryAfter) {
+        super(HttpStatus.TOO_MANY_REQUESTS, reason);
+        this.retryAfter = retryAfter;
+    }
+
+    public RateLimitExceededException(String reason, Duration retryAfter, Throwable cause) {
+        super(HttpStatus.TOO_MANY_REQUESTS, reason, cause);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration retryAfter() {
+        return retryAfter;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        var headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (retryAfter.toMillis() + 999) / 1000)));
+        return headers;
+    }
+}
@@ -0,0 +1,240 @@
+package com.epam.training.gen.ai.search;
+
+import com.epam.training.gen.ai.configuration.ClientOpenAiProperties;
+import com.epam.training.gen.ai.configuration.HybridSearchProperties;
+import com.epam.training.gen.ai.vector.VectorRecord;
+import com.epam.training.gen.ai.vector.VectorStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process inverted index over the {@code text} payload, ranked with BM25.
+ * <p>
+ * It complements the vector search for queries that depend on exact terms, such as identifiers, codes or names.
+ * Terms are the lowercase runs of letters and digits; runs joined by {@code -}, {@code _}, {@code .} or {@code /}
+ * are also indexed as a whole, so {@code ERR-404} matches both {@code err-404} and {@code 404}.
+ * <p>
+ * The index lives in memory only and is rebuilt from the {@link VectorStore} on startup. Replaced records are
+ * skipped by the searches but keep counting in the term statistics until the next rebuild.
+ */
+@Slf4j
+@Component
+public class Bm25Index {
+    private static final String TEXT = "text";
+    private static final int REBUILD_PAGE_SIZE = 256;
+
+    private final HybridSearchProperties properties;
+    private final VectorStore vectorStore;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> documents = new HashMap<>();
+    private final List<String> ids = new ArrayList<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private int[] lengths = new int[64];
+    private long totalLength;
+
+    public Bm25Index(ClientOpenAiProperties clientOpenAiProperties, VectorStore vectorStore) {
+        this.properties = clientOpenAiProperties.application().hybrid();
+        this.vectorStore = vectorStore;
+    }
+
+    public boolean enabled() {
+        return properties.enabled();
+    }
+
+    /**
+     * Loads the records already stored in the collection.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled()) {
+            return;
+        }
+        vectorStore.scroll(REBUILD_PAGE_SIZE, false)
+                .buffer(REBUILD_PAGE_SIZE)
+                .doOnNext(this::add)
+                .count()
+                .subscribe(pages -> log.info("Lexical index rebuilt with {} documents", size()),
+                        error -> log.warn("Lexical index could not be rebuilt: {}", error.getMessage()));
+    }
+
+    /**
+     * Indexes the text payload of the records, replacing the records with the same id.
+     *
+     * @param records the stored records
+     */
+    public void add(List<VectorRecord> records) {
+        if (!enabled()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            records.forEach(this::addRecord);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Searches the records that best match the terms of the text.
+     *
+     * @param text  the query text
+     * @param limit maximum amount of results
+     * @return the ids of the matching records, best first
+     */
+    public List<ScoredId> search(String text, int limit) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(text));
+        lock.readLock().lock();
+        try {
+            int count = ids.size();
+            if (count == 0 || terms.isEmpty()) {
+                return List.of();
+            }
+            float averageLength = (float) totalLength / count;
+            float k1 = (float) properties.k1();
+            float b = (float) properties.b();
+
+            var scores = new float[count];
+            var touched = new int[count];
+            int touchedCount = 0;
+            for (String term : terms) {
+                Postings termPostings = postings.get(term);
+                if (termPostings == null) {
+                    continue;
+                }
+                float idf = (float) Math.log(1 + (count - termPostings.size + 0.5) / (termPostings.size + 0.5));
+                for (int i = 0; i < termPostings.size; i++) {
+                    int document = termPostings.documents[i];
+                    int frequency = termPostings.frequencies[i];
+                    float norm = k1 * (1 - b + b * lengths[document] / averageLength);
+                    if (scores[document] == 0) {
+                        touched[touchedCount++] = document;
+                    }
+                    scores[document] += idf * frequency * (k1 + 1) / (frequency + norm);
+                }
+            }
+
+            var best = new PriorityQueue<ScoredId>(limit + 1, (x, y) -> Float.compare(x.score(), y.score()));
+            for (int i = 0; i < touchedCount; i++) {
+                String id = ids.get(touched[i]);
+                if (id != null) {
+                    best.add(new ScoredId(id, scores[touched[i]]));
+                    if (best.size() > limit) {
+                        best.poll();
+                    }
+                }
+            }
+            var results = new ScoredId[best.size()];
+            for (int i = results.length - 1; i >= 0; i--) {
+                results[i] = best.poll();
+            }
+            return Arrays.asList(results);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the amount of indexed records.
+     *
+     * @return the amount of records
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addRecord(VectorRecord record) {
+        Integer previous = documents.get(record.id());
+        if (previous != null) {
+            ids.set(previous, null);
+        }
+
+        Object text = record.payload().get(TEXT);
+        List<String> terms = text == null ? List.of() : tokenize(text.toString());
+        int document = ids.size();
+        ids.add(record.id());
+        documents.put(record.id(), document);
+        if (document == lengths.length) {
+            lengths = Arrays.copyOf(lengths, document * 2);
+        }
+        lengths[document] = terms.size();
+        totalLength += terms.size();
+
+        var frequencies = new HashMap<String, Integer>();
+        terms.forEach(term -> frequencies.merge(term, 1, Integer::sum));
+        frequencies.forEach((term, frequency) ->
+                postings.computeIfAbsent(term, key -> new Postings()).add(document, frequency));
+    }
+
+    static List<String> tokenize(String text) {
+        var terms = new ArrayList<String>();
+        String lowercase = text.toLowerCase(Locale.ROOT);
+        int compoundStart = -1;
+        int runs = 0;
+        int i = 0;
+        while (i <= lowercase.length()) {
+            char character = i < lowercase.length() ? lowercase.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(character)) {
+                int start = i;
+                while (i < lowercase.length() && Character.isLetterOrDigit(lowercase.charAt(i))) {
+                    i++;
+                }
+                terms.add(lowercase.substring(start, i));
+                if (compoundStart < 0) {
+                    compoundStart = start;
+                }
+                runs++;
+                continue;
+            }
+            boolean joiner = character == '-' || character == '_' || character == '.' || character == '/';
+            boolean joinsNext = joiner && i + 1 < lowercase.length()
+                    && Character.isLetterOrDigit(lowercase.charAt(i + 1));
+            if (!joinsNext) {
+                if (runs > 1) {
+                    terms.add(lowercase.substring(compoundStart, i));
+                }
+                compoundStart = -1;
+                runs = 0;
+            }
+            i++;
+        }
+        return terms;
+    }
+
+    /**
+     * Documents containing a term, with the term frequency within each document.
+     */
+    private static final class Postings {
+        private int[] documents = new int[4];
+        private int[] frequencies = new int[4];
+        private int size;
+
+        void add(int document, int frequency) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            documents[size] = document;
+            frequencies[size++] = frequency;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.epam.training.gen.ai.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges several rankings of the same records: every record scores {@code 1 / (k + rank)} for each ranking it is
+ * part of. Only the ranks are used, so rankings with scores on different scales can be merged.
+ */
+public final class ReciprocalRankFusion {
+
+    private ReciprocalRankFusion() {
+    }
+
+    /**
+     * Merges the rankings.
+     *
+     * @param rankConstant the {@code k} constant
+     * @param limit        maximum amount of results
+     * @param rankings     the ids of every ranking, best first
+     * @return the merged ranking, best first, scored with the fused score
+     */
+    public static List<ScoredId> fuse(int rankConstant, int limit, List<List<String>> rankings) {
+        var scores = new HashMap<String, Float>();
+        rankings.forEach(ranking -> {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                scores.merge(ranking.get(rank), 1f / (rankConstant + rank + 1), Float::sum);
+            }
+        });
+
+        var fused = new ArrayList<ScoredId>(scores.size());
+        for (Map.Entry<String, Float> entry : scores.entrySet()) {
+            fused.add(new ScoredId(entry.getKey(), entry.getValue()));
+        }
+        fused.sort(Comparator.comparingDouble((ScoredId scored) -> -scored.score()).thenComparing(ScoredId::id));
+        return fused.size() > limit ? fused.subList(0, limit) : fused;
+    }
+}
@@ -0,0 +1,127 @@
+package com.epam.training.gen.ai.search;
+
+import com.epam.training.gen.ai.configuration.ClientOpenAiProperties;
+import com.epam.training.gen.ai.configuration.RerankProperties;
+import com.epam.training.gen.ai.vector.VectorMatch;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Second phase of the vector search: reorders an oversampled set of approximate matches by their exact cosine
+ * similarity with the query.
+ * <p>
+ * The approximate index, and the quantization even more, can swap matches of close scores, so the true top
+ * matches are usually within a somewhat larger candidate set. With maximal marginal relevance enabled, every next
+ * match is the one that best balances its relevance with its difference to the matches already picked, which keeps
+ * near duplicates out of the results.
+ */
+@Slf4j
+@Component
+public class Reranker {
+    private final RerankProperties properties;
+    private final SimilarityKernel kernel;
+
+    public Reranker(ClientOpenAiProperties clientOpenAiProperties) {
+        this.properties = clientOpenAiProperties.application().rerank();
+        this.kernel = SimilarityKernel.create();
+        if (properties.enabled()) {
+            log.info("Search results are re-ranked with the {} similarity kernel", kernel.name());
+        }
+    }
+
+    public boolean enabled() {
+        return properties.enabled();
+    }
+
+    /**
+     * Computes how many candidates are fetched to return the given amount of matches.
+     *
+     * @param limit the amount of matches to return
+     * @return the amount of candidates
+     */
+    public int candidates(int limit) {
+        return (int) Math.ceil(limit * Math.max(1, properties.oversampling()));
+    }
+
+    /**
+     * Reorders the candidates by their exact similarity and keeps the best ones.
+     *
+     * @param query      the query vector
+     * @param candidates the approximate matches, with their vectors
+     * @param limit      maximum amount of matches
+     * @return the best matches, their score is the exact cosine similarity
+     */
+    public List<VectorMatch> rerank(float[] query, List<VectorMatch> candidates, int limit) {
+        int size = candidates.size();
+        var relevance = new float[size];
+        for (int i = 0; i < size; i++) {
+            relevance[i] = kernel.cosine(query, candidates.get(i).vector());
+        }
+        int[] order = properties.mmr()
+                ? diversify(candidates, relevance, limit)
+                : best(relevance, limit);
+
+        var matches = new ArrayList<VectorMatch>(order.length);
+        for (int position : order) {
+            VectorMatch candidate = candidates.get(position);
+            matches.add(new VectorMatch(candidate.id(), relevance[position], candidate.payload(),
+                    candidate.vector()));
+        }
+        return matches;
+    }
+
+    private static int[] best(float[] relevance, int limit) {
+        Integer[] positions = new Integer[relevance.length];
+        Arrays.setAll(positions, i -> i);
+        Arrays.sort(positions, (a, b) -> Float.compare(relevance[b], relevance[a]));
+        int[] order = new int[Math.min(limit, positions.length)];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = positions[i];
+        }
+        return order;
+    }
+
+    /**
+     * Picks the matches greedily by maximal marginal relevance. The highest similarity of every candidate with the
+     * picked matches is updated after every pick, so only one similarity per candidate and pick is computed.
+     */
+    private int[] diversify(List<VectorMatch> candidates, float[] relevance, int limit) {
+        int size = candidates.size();
+        double lambda = properties.mmrLambda();
+        var redundancy = new float[size];
+        Arrays.fill(redundancy, Float.NEGATIVE_INFINITY);
+        var picked = new boolean[size];
+        int[] order = new int[Math.min(limit, size)];
+
+        for (int round = 0; round < order.length; round++) {
+            int bestPosition = -1;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < size; i++) {
+                if (picked[i]) {
+                    continue;
+                }
+                double score = round == 0
+                        ? relevance[i]
+                        : lambda * relevance[i] - (1 - lambda) * redundancy[i];
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestPosition = i;
+                }
+            }
+            order[round] = bestPosition;
+            picked[bestPosition] = true;
+
+            float[] pickedVector = candidates.get(bestPosition).vector();
+            for (int i = 0; i < size; i++) {
+                if (!picked[i]) {
+                    redundancy[i] = Math.max(redundancy[i], kernel.cosine(pickedVector, candidates.get(i).vector()));
+                }
+            }
+        }
+        return order;
+    }
+}
@@ -0,0 +1,19 @@
+package com.epam.training.gen.ai.search;
+
+import com.epam.training.gen.ai.util.VectorMath;
+
+/**
+ * {@link SimilarityKernel} made of a single loop that accumulates the dot product and both norms.
+ */
+final class ScalarSimilarityKernel extends SimilarityKernel {
+
+    @Override
+    float cosine(float[] a, float[] b) {
+        return VectorMath.cosine(a, b);
+    }
+
+    @Override
+    String name() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,10 @@
+package com.epam.training.gen.ai.search;
+
+/**
+ * Id of a record ranked by a search.
+ *
+ * @param id    the record id
+ * @param score the ranking score, higher is better
+ */
+public record ScoredId(String id, float score) {
+}
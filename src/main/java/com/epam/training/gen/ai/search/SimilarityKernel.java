@@ -0,0 +1,45 @@
+package com.epam.training.gen.ai.search;
+
+/**
+ * Computes the exact cosine similarity of two vectors.
+ * <p>
+ * The implementation backed by the Vector API is used when the {@code jdk.incubator.vector} module is enabled with
+ * {@code --add-modules jdk.incubator.vector}; otherwise a plain loop is used, which the JIT may still
+ * auto-vectorize. The Vector API kernel is loaded by name, so it is the only class compiled against the incubator
+ * module.
+ */
+abstract class SimilarityKernel {
+    private static final String VECTOR_API_KERNEL = "com.epam.training.gen.ai.search.VectorApiSimilarityKernel";
+
+    /**
+     * Creates the fastest kernel available in the running JVM.
+     *
+     * @return the kernel
+     */
+    static SimilarityKernel create() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (SimilarityKernel) Class.forName(VECTOR_API_KERNEL).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // the module is there but cannot be linked, the scalar kernel gives the same results
+            }
+        }
+        return new ScalarSimilarityKernel();
+    }
+
+    /**
+     * Computes the cosine similarity.
+     *
+     * @param a first vector
+     * @param b second vector, of the same size
+     * @return the cosine similarity, zero if any vector is all zeros
+     */
+    abstract float cosine(float[] a, float[] b);
+
+    /**
+     * Describes the kernel for the logs.
+     *
+     * @return the kernel name
+     */
+    abstract String name();
+}
@@ -0,0 +1,45 @@
+package com.epam.training.gen.ai.search;
+
+import com.epam.training.gen.ai.util.VectorMath;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link SimilarityKernel} that processes as many components per instruction as the CPU allows, with fused
+ * multiply-adds into three accumulators. The components left over by the last full vector go through a scalar loop.
+ */
+final class VectorApiSimilarityKernel extends SimilarityKernel {
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    float cosine(float[] a, float[] b) {
+        var dotVector = FloatVector.zero(SPECIES);
+        var normAVector = FloatVector.zero(SPECIES);
+        var normBVector = FloatVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(a.length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            var va = FloatVector.fromArray(SPECIES, a, i);
+            var vb = FloatVector.fromArray(SPECIES, b, i);
+            dotVector = va.fma(vb, dotVector);
+            normAVector = va.fma(va, normAVector);
+            normBVector = vb.fma(vb, normBVector);
+        }
+
+        float dot = dotVector.reduceLanes(VectorOperators.ADD);
+        float normA = normAVector.reduceLanes(VectorOperators.ADD);
+        float normB = normBVector.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return VectorMath.cosine(dot, normA, normB);
+    }
+
+    @Override
+    String name() {
+        return "Vector API, " + SPECIES.length() + " lanes";
+    }
+}
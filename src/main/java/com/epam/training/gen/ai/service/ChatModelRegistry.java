@@ -0,0 +1,116 @@
+package com.epam.training.gen.ai.service;
+
+import com.azure.ai.openai.OpenAIAsyncClient;
+import com.epam.training.gen.ai.configuration.ChatModelsProperties;
+import com.epam.training.gen.ai.configuration.ClientOpenAiProperties;
+import com.microsoft.semantickernel.Kernel;
+import com.microsoft.semantickernel.aiservices.openai.chatcompletion.OpenAIChatCompletion;
+import com.microsoft.semantickernel.plugin.KernelPlugin;
+import com.microsoft.semantickernel.semanticfunctions.KernelFunction;
+import com.microsoft.semantickernel.services.chatcompletion.ChatCompletionService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds the {@link ChatCompletionService} and the {@link Kernel} of every chat model once and shares them between
+ * requests, together with the kernels of every plugin and the compiled prompt templates.
+ * <p>
+ * The models come from the requests, so at most {@code max-models} of them are kept; the clients of further
+ * models are built for every request, as all of them used to be.
+ */
+@Slf4j
+@Component
+public class ChatModelRegistry {
+    private final OpenAIAsyncClient openAIAsyncClient;
+    private final ChatModelsProperties properties;
+    private final Map<String, ModelClients> models = new ConcurrentHashMap<>();
+    private final Map<String, KernelFunction<String>> templates = new ConcurrentHashMap<>();
+
+    public ChatModelRegistry(OpenAIAsyncClient openAIAsyncClient, ClientOpenAiProperties clientOpenAiProperties) {
+        this.openAIAsyncClient = openAIAsyncClient;
+        this.properties = clientOpenAiProperties.application().models();
+    }
+
+    @PostConstruct
+    public void warmUp() {
+        properties.warmUp().forEach(this::clients);
+        if (!properties.warmUp().isEmpty()) {
+            log.info("Chat model clients ready for {}", properties.warmUp());
+        }
+    }
+
+    /**
+     * Returns the chat completion service of a model.
+     *
+     * @param model the deployment name of the model
+     * @return the shared {@link ChatCompletionService}
+     */
+    public ChatCompletionService chatCompletionService(String model) {
+        return clients(model).chatCompletionService();
+    }
+
+    /**
+     * Returns the kernel of a model, without plugins.
+     *
+     * @param model the deployment name of the model
+     * @return the shared {@link Kernel}
+     */
+    public Kernel kernel(String model) {
+        return clients(model).kernel();
+    }
+
+    /**
+     * Returns the kernel of a model with a plugin.
+     *
+     * @param model  the deployment name of the model
+     * @param plugin the plugin the model can call, the same instance gets the same kernel
+     * @return the shared {@link Kernel}
+     */
+    public Kernel kernel(String model, KernelPlugin plugin) {
+        ModelClients clients = clients(model);
+        return clients.pluginKernels().computeIfAbsent(plugin, key -> Kernel.builder()
+                .withAIService(ChatCompletionService.class, clients.chatCompletionService())
+                .withPlugin(key)
+                .build());
+    }
+
+    /**
+     * Returns the function of a prompt template, the template is parsed once.
+     *
+     * @param template the prompt template
+     * @return the shared {@link KernelFunction}
+     */
+    public KernelFunction<String> function(String template) {
+        return templates.computeIfAbsent(template, key -> KernelFunction.<String>createFromPrompt(key).build());
+    }
+
+    private ModelClients clients(String model) {
+        ModelClients clients = models.get(model);
+        if (clients != null) {
+            return clients;
+        }
+        if (models.size() >= properties.maxModels()) {
+            return build(model);
+        }
+        return models.computeIfAbsent(model, this::build);
+    }
+
+    private ModelClients build(String model) {
+        ChatCompletionService chatCompletionService = OpenAIChatCompletion.builder()
+                .withModelId(model)
+                .withOpenAIAsyncClient(openAIAsyncClient)
+                .build();
+        Kernel kernel = Kernel.builder()
+                .withAIService(ChatCompletionService.class, chatCompletionService)
+                .build();
+        return new ModelClients(chatCompletionService, kernel, new ConcurrentHashMap<>());
+    }
+
+    private record ModelClients(ChatCompletionService chatCompletionService, Kernel kernel,
+                                Map<KernelPlugin, Kernel> pluginKernels) {
+    }
+}
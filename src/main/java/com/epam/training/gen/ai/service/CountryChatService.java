@@ -1,9 +1,13 @@
 package com.epam.training.gen.ai.service;
 
-import com.azure.ai.openai.OpenAIAsyncClient;
+import com.epam.training.gen.ai.history.ChatHistoryManager;
+import com.epam.training.gen.ai.history.Conversation;
+import com.epam.training.gen.ai.history.ConversationStore;
 import com.epam.training.gen.ai.model.ChatbotResponse;
 import com.epam.training.gen.ai.plugin.CountryPlugin;
-import com.microsoft.semantickernel.Kernel;
+import com.epam.training.gen.ai.routing.DeploymentRateLimiter;
+import com.epam.training.gen.ai.routing.DeploymentRouter;
+import com.epam.training.gen.ai.routing.ModelRouter;
 import com.microsoft.semantickernel.orchestration.InvocationContext;
 import com.microsoft.semantickernel.orchestration.InvocationReturnMode;
 import com.microsoft.semantickernel.orchestration.ToolCallBehavior;
@@ -11,27 +15,38 @@ import com.microsoft.semantickernel.plugin.KernelPlugin;
 import com.microsoft.semantickernel.plugin.KernelPluginFactory;
 import com.microsoft.semantickernel.semanticfunctions.KernelFunction;
 import com.microsoft.semantickernel.semanticfunctions.KernelFunctionArguments;
-import com.microsoft.semantickernel.services.chatcompletion.ChatCompletionService;
+import com.microsoft.semantickernel.services.KernelContent;
 import com.microsoft.semantickernel.services.chatcompletion.ChatHistory;
-import org.springframework.beans.factory.annotation.Lookup;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
 /**
  * Handles requests from Country info chat.
  */
 @Service
-public abstract class CountryChatService {
-    private final OpenAIAsyncClient openAIAsyncClient;
-    private final ChatHistory chatHistory;
+public class CountryChatService {
+    private final ChatModelRegistry chatModelRegistry;
+    private final ModelRouter modelRouter;
+    private final DeploymentRouter deploymentRouter;
+    private final DeploymentRateLimiter rateLimiter;
+    private final ConversationStore conversationStore;
+    private final ChatHistoryManager chatHistoryManager;
     private final CountryService countryService;
 
     private InvocationContext invocationContext;
 
     private KernelPlugin countryPlugin;
 
-    public CountryChatService(final ChatHistory chatHistory, final OpenAIAsyncClient openAIAsyncClient, final CountryService countryService) {
-        this.chatHistory = chatHistory;
-        this.openAIAsyncClient = openAIAsyncClient;
+    public CountryChatService(final ConversationStore conversationStore, final ChatHistoryManager chatHistoryManager,
+                              final ChatModelRegistry chatModelRegistry, final ModelRouter modelRouter,
+                              final DeploymentRouter deploymentRouter, final DeploymentRateLimiter rateLimiter,
+                              final CountryService countryService) {
+        this.conversationStore = conversationStore;
+        this.chatHistoryManager = chatHistoryManager;
+        this.chatModelRegistry = chatModelRegistry;
+        this.modelRouter = modelRouter;
+        this.deploymentRouter = deploymentRouter;
+        this.rateLimiter = rateLimiter;
         this.countryService = countryService;
 
         this.invocationContext = new InvocationContext.Builder()
@@ -43,35 +58,62 @@ public abstract class CountryChatService {
                 .createFromObject(new CountryPlugin(this.countryService), "CountryPlugin");
     }
 
-    @Lookup
-    protected abstract ChatCompletionService getChatCompletionService(OpenAIAsyncClient openAIAsyncClient,
-                                                                      String deploymentName);
-
-    @Lookup("pluginKernelBean")
-    protected abstract Kernel getCountryKernel(ChatCompletionService chatCompletionService, KernelPlugin kernelPlugin);
-
-
     /**
      * Send a prompt with history to Azure OpenAI.
      *
-     * @param userPrompt prompt send by user
-     * @param model      AI Model to use
+     * @param conversationId identifier of the conversation
+     * @param userPrompt     prompt send by user
+     * @param model          AI Model to use
      * @return the response from the AI Assistant
      */
-    public ChatbotResponse sendPromptWithHistory(String userPrompt, String model) {
-        this.chatHistory.addUserMessage(userPrompt);
-
-        ChatCompletionService chatCompletionService = getChatCompletionService(openAIAsyncClient, model);
-        var response = chatCompletionService
-                .getChatMessageContentsAsync(chatHistory,
-                        getCountryKernel(chatCompletionService, countryPlugin),
-                        invocationContext).block();
-
-        chatHistory.addAssistantMessage(response.get(0).toString());
+    public ChatbotResponse sendPromptWithHistory(String conversationId, String userPrompt, String model) {
+        Conversation conversation = conversationStore.get(conversationId);
+        ChatHistory chatHistory = chatHistoryManager.history(conversation, userPrompt);
+        chatHistory.addUserMessage(userPrompt);
+        int promptTokens = modelRouter.promptTokens(chatHistory);
+        String deployment = modelRouter.resolve(model, promptTokens);
+
+        var response = deploymentRouter.route(deployment, target -> rateLimiter.limit(target, promptTokens,
+                        () -> chatModelRegistry.chatCompletionService(target)
+                                .getChatMessageContentsAsync(chatHistory,
+                                        chatModelRegistry.kernel(target, countryPlugin),
+                                        invocationContext)))
+                .block();
+
+        chatHistoryManager.record(conversation, deployment, userPrompt, response.get(0).toString());
 
         return new ChatbotResponse(response.get(0).toString());
     }
 
+    /**
+     * Send a prompt with history to Azure OpenAI, streaming the response as it is generated.
+     * <p>
+     * The response is added to the history once it is complete.
+     *
+     * @param conversationId identifier of the conversation
+     * @param userPrompt     prompt send by user
+     * @param model          AI Model to use
+     * @return the pieces of the response, cancelling the subscription cancels the Azure OpenAI request
+     */
+    public Flux<String> streamPromptWithHistory(String conversationId, String userPrompt, String model) {
+        Conversation conversation = conversationStore.get(conversationId);
+        ChatHistory history = chatHistoryManager.history(conversation, userPrompt);
+        history.addUserMessage(userPrompt);
+        int promptTokens = modelRouter.promptTokens(history);
+        String deployment = modelRouter.resolve(model, promptTokens);
+
+        var response = new StringBuilder();
+        return deploymentRouter.routeMany(deployment, target -> rateLimiter.limitMany(target, promptTokens,
+                        () -> chatModelRegistry.chatCompletionService(target)
+                                .getStreamingChatMessageContentsAsync(history,
+                                        chatModelRegistry.kernel(target, countryPlugin),
+                                        invocationContext)))
+                .mapNotNull(KernelContent::getContent)
+                .doOnNext(response::append)
+                .doOnComplete(() -> chatHistoryManager.record(conversation, deployment, userPrompt,
+                        response.toString()));
+    }
+
     private KernelFunction<String> getKernelTemplate() {
         return KernelFunction.<String>createFromPrompt("""
                 {{$chatHistory}}
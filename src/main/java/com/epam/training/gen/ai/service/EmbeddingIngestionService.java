@@ -0,0 +1,208 @@
+package com.epam.training.gen.ai.service;
+
+import com.epam.training.gen.ai.chunking.TextChunk;
+import com.epam.training.gen.ai.configuration.ClientOpenAiProperties;
+import com.epam.training.gen.ai.configuration.IngestionProperties;
+import com.epam.training.gen.ai.model.EmbeddingRequest;
+import com.epam.training.gen.ai.model.IngestionItemResult;
+import com.epam.training.gen.ai.vector.VectorRecord;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Service that loads large amounts of texts into the vector collection.
+ * <p>
+ * Texts are packed into batched embeddings requests, a bounded amount of batches run concurrently and
+ * the resulting records are upserted in chunks, one chunk at a time, so a slow vector store slows down the
+ * embeddings requests instead of piling up records in memory.
+ * <p>
+ * The point ids are derived from the content, and for document chunks also from their position. Before a batch is
+ * embedded its ids are looked up in the vector store within a single request, the content already stored is reported
+ * as skipped and neither embedded nor upserted, so running the same ingestion again is almost free. The chunks that
+ * moved within a document get new ids and are stored again with their new position.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EmbeddingIngestionService {
+    private final VectorDbService vectorDbService;
+    private final ClientOpenAiProperties clientOpenAiProperties;
+
+    /**
+     * Embeds and stores all the incoming requests.
+     *
+     * @param requests the texts to ingest
+     * @return the outcome of every item, emitted as soon as its chunk is processed
+     */
+    public Flux<IngestionItemResult> ingest(Flux<EmbeddingRequest> requests) {
+        return ingestItems(requests
+                .index()
+                .map(item -> new SourceItem(item.getT1(), item.getT2().text(), null)));
+    }
+
+    /**
+     * Embeds and stores the chunks of a document, each chunk as its own point.
+     *
+     * @param chunks the chunks of the document
+     * @return the outcome of every chunk, the index of the result is the index of the chunk
+     */
+    public Flux<IngestionItemResult> ingestDocument(Flux<TextChunk> chunks) {
+        return ingestItems(chunks.map(chunk -> new SourceItem(chunk.index(), chunk.text(), chunk)));
+    }
+
+    private Flux<IngestionItemResult> ingestItems(Flux<SourceItem> items) {
+        IngestionProperties ingestion = clientOpenAiProperties.application().ingestion();
+        return items
+                .buffer(ingestion.batchSize())
+                .flatMap(this::embedBatch, ingestion.concurrency())
+                .buffer(ingestion.upsertChunkSize())
+                .concatMap(this::upsertChunk);
+    }
+
+    /**
+     * Embeds the new texts of a batch within a single request. Invalid texts and failed requests are turned into
+     * pending items with an error so they are reported instead of cancelling the whole ingestion. Texts repeated
+     * within the batch are embedded once.
+     *
+     * @param batch the indexed requests
+     * @return the pending records of the batch
+     */
+    private Flux<PendingRecord> embedBatch(List<SourceItem> batch) {
+        var failed = new ArrayList<PendingRecord>();
+        var itemsById = new LinkedHashMap<String, List<SourceItem>>();
+        batch.forEach(item -> {
+            if (StringUtils.isEmpty(item.text())) {
+                failed.add(PendingRecord.failed(item.index(), "'text' is mandatory"));
+            } else {
+                String id = item.chunk() == null
+                        ? vectorDbService.getPointId(item.text())
+                        : vectorDbService.getPointId(item.chunk());
+                itemsById.computeIfAbsent(id, key -> new ArrayList<>(1)).add(item);
+            }
+        });
+
+        if (itemsById.isEmpty()) {
+            return Flux.fromIterable(failed);
+        }
+
+        var embedded = vectorDbService.findExistingIds(List.copyOf(itemsById.keySet()))
+                .flatMapMany(existingIds -> embedNew(itemsById, existingIds))
+                .onErrorResume(error -> {
+                    log.warn("Embeddings batch of {} items failed: {}", batch.size() - failed.size(),
+                            error.getMessage());
+                    return Flux.fromIterable(itemsById.values())
+                            .flatMapIterable(items -> items)
+                            .map(item -> PendingRecord.failed(item.index(), error.getMessage()));
+                });
+
+        return Flux.fromIterable(failed).concatWith(embedded);
+    }
+
+    private Flux<PendingRecord> embedNew(Map<String, List<SourceItem>> itemsById, Set<String> existingIds) {
+        var skipped = new ArrayList<PendingRecord>();
+        var fresh = new ArrayList<List<SourceItem>>(itemsById.size());
+        itemsById.forEach((id, items) -> {
+            if (existingIds.contains(id)) {
+                items.forEach(item -> skipped.add(PendingRecord.skipped(item.index(), id)));
+            } else {
+                fresh.add(items);
+            }
+        });
+
+        if (fresh.isEmpty()) {
+            return Flux.fromIterable(skipped);
+        }
+
+        var texts = new LinkedHashMap<String, Integer>();
+        fresh.forEach(items -> texts.putIfAbsent(items.get(0).text(), texts.size()));
+        return Flux.fromIterable(skipped)
+                .concatWith(vectorDbService.getEmbeddingsAsync(List.copyOf(texts.keySet()))
+                        .flatMapIterable(embeddings -> toPendingRecords(fresh, texts, embeddings)));
+    }
+
+    private List<PendingRecord> toPendingRecords(List<List<SourceItem>> batch, Map<String, Integer> texts,
+                                                 List<float[]> embeddings) {
+        var pendingRecords = new ArrayList<PendingRecord>(batch.size());
+        for (List<SourceItem> items : batch) {
+            var first = items.get(0);
+            float[] vector = embeddings.get(texts.get(first.text()));
+            var record = first.chunk() == null
+                    ? vectorDbService.getVectorRecord(first.text(), vector)
+                    : vectorDbService.getChunkRecord(first.chunk(), vector);
+            items.forEach(item -> pendingRecords.add(new PendingRecord(item.index(), record, null)));
+        }
+        return pendingRecords;
+    }
+
+    /**
+     * Upserts the chunk records that were embedded successfully and reports the outcome of every item.
+     *
+     * @param chunk the pending records to store
+     * @return the result of every item within the chunk
+     */
+    private Flux<IngestionItemResult> upsertChunk(List<PendingRecord> chunk) {
+        var settled = new ArrayList<IngestionItemResult>();
+        var ready = new ArrayList<PendingRecord>(chunk.size());
+        var records = new LinkedHashMap<String, VectorRecord>();
+        chunk.forEach(pending -> {
+            if (pending.outcome() != null) {
+                settled.add(pending.outcome());
+            } else {
+                ready.add(pending);
+                records.put(pending.record().id(), pending.record());
+            }
+        });
+
+        if (ready.isEmpty()) {
+            return Flux.fromIterable(settled);
+        }
+
+        var stored = vectorDbService.saveVectorAsync(List.copyOf(records.values()))
+                .thenMany(Flux.fromIterable(ready)
+                        .map(pending -> IngestionItemResult.stored(pending.index(), pending.record().id())))
+                .onErrorResume(error -> {
+                    log.warn("Upsert of {} records failed: {}", ready.size(), error.getMessage());
+                    return Flux.fromIterable(ready)
+                            .map(pending -> IngestionItemResult.failed(pending.index(), error.getMessage()));
+                });
+
+        return Flux.fromIterable(settled).concatWith(stored);
+    }
+
+    /**
+     * Item waiting to be embedded.
+     *
+     * @param index position of the item within the request
+     * @param text  the text to embed
+     * @param chunk the document chunk the text comes from, null for plain texts
+     */
+    private record SourceItem(long index, String text, TextChunk chunk) {
+    }
+
+    /**
+     * Item that has gone through the embeddings stage and waits to be upserted.
+     *
+     * @param index   position of the item within the request
+     * @param record  the record to store, null if the item failed or was skipped
+     * @param outcome final result of the items that are not upserted, null if the item was embedded
+     */
+    private record PendingRecord(long index, VectorRecord record, IngestionItemResult outcome) {
+
+        static PendingRecord failed(long index, String error) {
+            return new PendingRecord(index, null, IngestionItemResult.failed(index, error));
+        }
+
+        static PendingRecord skipped(long index, String id) {
+            return new PendingRecord(index, null, IngestionItemResult.skipped(index, id));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.epam.training.gen.ai.service;
+
+import com.azure.core.util.BinaryData;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Encodes the embeddings requests and decodes the responses of the Azure OpenAI REST API straight into
+ * {@code float[]}.
+ * <p>
+ * The SDK models parse every vector component into a boxed {@code Double} and then copy it into a boxed
+ * {@code Float}. Requesting the {@code base64} encoding and decoding the little-endian floats here keeps the
+ * vectors primitive from the HTTP response on, and also makes the response body about four times smaller.
+ */
+final class EmbeddingsCodec {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private EmbeddingsCodec() {
+    }
+
+    /**
+     * Creates the request body for the given texts.
+     *
+     * @param texts the texts to be embedded
+     * @return the JSON request body
+     */
+    static BinaryData encodeRequest(List<String> texts) {
+        var output = new ByteArrayOutputStream();
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(output)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("input");
+            for (String text : texts) {
+                generator.writeString(text);
+            }
+            generator.writeEndArray();
+            generator.writeStringField("encoding_format", "base64");
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return BinaryData.fromBytes(output.toByteArray());
+    }
+
+    /**
+     * Decodes the vectors of an embeddings response. Both the {@code base64} and the default {@code float}
+     * encodings are accepted, so the response is read correctly even if a deployment ignores the requested format.
+     *
+     * @param response the JSON response body
+     * @param expected the number of texts that were sent
+     * @return one vector per text, in the same order as the request
+     */
+    static List<float[]> decodeResponse(BinaryData response, int expected) {
+        var vectors = new float[expected][];
+        try (JsonParser parser = JSON_FACTORY.createParser(response.toBytes())) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("data".equals(field)) {
+                    readData(parser, vectors);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Malformed embeddings response", e);
+        }
+
+        for (int i = 0; i < expected; i++) {
+            if (vectors[i] == null) {
+                throw new IllegalStateException("Embeddings response has no vector for input " + i);
+            }
+        }
+        return Arrays.asList(vectors);
+    }
+
+    private static void readData(JsonParser parser, float[][] vectors) throws IOException {
+        expect(parser.currentToken(), JsonToken.START_ARRAY);
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            int index = -1;
+            float[] vector = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                if ("index".equals(field)) {
+                    index = parser.getIntValue();
+                } else if ("embedding".equals(field)) {
+                    vector = token == JsonToken.VALUE_STRING ? decodeBase64(parser) : readFloats(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (index < 0 || index >= vectors.length || vector == null) {
+                throw new IllegalStateException("Unexpected embeddings item with index " + index);
+            }
+            vectors[index] = vector;
+        }
+    }
+
+    private static float[] decodeBase64(JsonParser parser) throws IOException {
+        var buffer = ByteBuffer.wrap(parser.getBinaryValue()).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+        var vector = new float[buffer.remaining()];
+        buffer.get(vector);
+        return vector;
+    }
+
+    private static float[] readFloats(JsonParser parser) throws IOException {
+        expect(parser.currentToken(), JsonToken.START_ARRAY);
+        var vector = new float[1536];
+        int size = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (size == vector.length) {
+                vector = Arrays.copyOf(vector, size * 2);
+            }
+            vector[size++] = parser.getFloatValue();
+        }
+        return size == vector.length ? vector : Arrays.copyOf(vector, size);
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) {
+        if (actual != expected) {
+            throw new IllegalStateException("Malformed embeddings response, expected " + expected + " but got "
+                    + actual);
+        }
+    }
+}
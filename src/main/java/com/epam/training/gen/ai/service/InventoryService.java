@@ -1,10 +1,13 @@
 package com.epam.training.gen.ai.service;
 
-import com.azure.ai.openai.OpenAIAsyncClient;
+import com.epam.training.gen.ai.history.ChatHistoryManager;
+import com.epam.training.gen.ai.history.Conversation;
+import com.epam.training.gen.ai.history.ConversationStore;
 import com.epam.training.gen.ai.model.ChatbotResponse;
 import com.epam.training.gen.ai.model.InventoryItem;
 import com.epam.training.gen.ai.plugin.InventoryPlugin;
-import com.microsoft.semantickernel.Kernel;
+import com.epam.training.gen.ai.routing.DeploymentRateLimiter;
+import com.epam.training.gen.ai.routing.ModelRouter;
 import com.microsoft.semantickernel.orchestration.InvocationContext;
 import com.microsoft.semantickernel.orchestration.InvocationReturnMode;
 import com.microsoft.semantickernel.orchestration.ToolCallBehavior;
@@ -12,31 +15,46 @@ import com.microsoft.semantickernel.plugin.KernelPlugin;
 import com.microsoft.semantickernel.plugin.KernelPluginFactory;
 import com.microsoft.semantickernel.semanticfunctions.KernelFunction;
 import com.microsoft.semantickernel.semanticfunctions.KernelFunctionArguments;
-import com.microsoft.semantickernel.services.chatcompletion.ChatCompletionService;
+import com.microsoft.semantickernel.services.KernelContent;
 import com.microsoft.semantickernel.services.chatcompletion.ChatHistory;
-import org.springframework.beans.factory.annotation.Lookup;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
 import java.util.Map;
 
 /**
  * Handles requests for inventory management.
+ * <p>
+ * The requests are not sent through the {@link com.epam.training.gen.ai.routing.DeploymentRouter}: the inventory
+ * functions change the stock, and a hedged or failed over request could call them again.
  */
 @Service
-public abstract class InventoryService {
-    private final ChatHistory chatHistory;
-    private final OpenAIAsyncClient openAIAsyncClient;
+public class InventoryService {
+    private static final String SYSTEM_PROMPT =
+            "You are a chat-bot capable of handling a store inventory. You can add or remove units from inventory items.";
+
+    private final ConversationStore conversationStore;
+    private final ChatHistoryManager chatHistoryManager;
+    private final ChatModelRegistry chatModelRegistry;
+    private final ModelRouter modelRouter;
+    private final DeploymentRateLimiter rateLimiter;
 
     private InvocationContext invocationContext;
 
     private KernelPlugin inventoryPlugin;
 
     public InventoryService(
-            final ChatHistory chatHistory,
-            final OpenAIAsyncClient openAIAsyncClient,
+            final ConversationStore conversationStore,
+            final ChatHistoryManager chatHistoryManager,
+            final ChatModelRegistry chatModelRegistry,
+            final ModelRouter modelRouter,
+            final DeploymentRateLimiter rateLimiter,
             final Map<Integer, InventoryItem> inventory) {
-        this.chatHistory = chatHistory;
-        this.openAIAsyncClient = openAIAsyncClient;
+        this.conversationStore = conversationStore;
+        this.chatHistoryManager = chatHistoryManager;
+        this.chatModelRegistry = chatModelRegistry;
+        this.modelRouter = modelRouter;
+        this.rateLimiter = rateLimiter;
 
         this.invocationContext = new InvocationContext.Builder()
                 .withReturnMode(InvocationReturnMode.LAST_MESSAGE_ONLY)
@@ -47,36 +65,64 @@ public abstract class InventoryService {
                 .createFromObject(new InventoryPlugin(inventory), "InventoryPlugin");
     }
 
-    @Lookup
-    protected abstract ChatCompletionService getChatCompletionService(OpenAIAsyncClient openAIAsyncClient,
-                                                                      String deploymentName);
-
-    @Lookup("pluginKernelBean")
-    protected abstract Kernel getInventoryKernel(ChatCompletionService chatCompletionService, KernelPlugin kernelPlugin);
-
-
     /**
      * Send a prompt with history to Azure OpenAI to handle inventory.
      *
-     * @param userPrompt prompt send by user
-     * @param model      AI Model to use
+     * @param conversationId identifier of the conversation
+     * @param userPrompt     prompt send by user
+     * @param model          AI Model to use
      * @return the response from the AI Assistant
      */
-    public ChatbotResponse sendPromptWithHistory(String userPrompt, String model) {
-        this.chatHistory.addSystemMessage("You are a chat-bot capable of handling a store inventory. You can add or remove units from inventory items.");
-        this.chatHistory.addUserMessage(userPrompt);
-
-        ChatCompletionService chatCompletionService = getChatCompletionService(openAIAsyncClient, model);
-        var response = chatCompletionService
-                .getChatMessageContentsAsync(chatHistory,
-                        getInventoryKernel(chatCompletionService, inventoryPlugin),
-                        invocationContext).block();
-
-        chatHistory.addAssistantMessage(response.get(0).toString());
+    public ChatbotResponse sendPromptWithHistory(String conversationId, String userPrompt, String model) {
+        Conversation conversation = conversationStore.get(conversationId);
+        chatHistoryManager.pin(conversation, SYSTEM_PROMPT);
+        ChatHistory chatHistory = chatHistoryManager.history(conversation, userPrompt);
+        chatHistory.addUserMessage(userPrompt);
+        int promptTokens = modelRouter.promptTokens(chatHistory);
+        String deployment = modelRouter.resolve(model, promptTokens);
+
+        var response = rateLimiter.limit(deployment, promptTokens, () -> chatModelRegistry
+                        .chatCompletionService(deployment)
+                        .getChatMessageContentsAsync(chatHistory,
+                                chatModelRegistry.kernel(deployment, inventoryPlugin),
+                                invocationContext))
+                .block();
+
+        chatHistoryManager.record(conversation, deployment, userPrompt, response.get(0).toString());
 
         return new ChatbotResponse(response.get(0).toString());
     }
 
+    /**
+     * Send a prompt with history to Azure OpenAI to handle inventory, streaming the response as it is generated.
+     * <p>
+     * The response is added to the history once it is complete.
+     *
+     * @param conversationId identifier of the conversation
+     * @param userPrompt     prompt send by user
+     * @param model          AI Model to use
+     * @return the pieces of the response, cancelling the subscription cancels the Azure OpenAI request
+     */
+    public Flux<String> streamPromptWithHistory(String conversationId, String userPrompt, String model) {
+        Conversation conversation = conversationStore.get(conversationId);
+        chatHistoryManager.pin(conversation, SYSTEM_PROMPT);
+        ChatHistory history = chatHistoryManager.history(conversation, userPrompt);
+        history.addUserMessage(userPrompt);
+        int promptTokens = modelRouter.promptTokens(history);
+        String deployment = modelRouter.resolve(model, promptTokens);
+
+        var response = new StringBuilder();
+        return rateLimiter.limitMany(deployment, promptTokens, () -> chatModelRegistry
+                        .chatCompletionService(deployment)
+                        .getStreamingChatMessageContentsAsync(history,
+                                chatModelRegistry.kernel(deployment, inventoryPlugin),
+                                invocationContext))
+                .mapNotNull(KernelContent::getContent)
+                .doOnNext(response::append)
+                .doOnComplete(() -> chatHistoryManager.record(conversation, deployment, userPrompt,
+                        response.toString()));
+    }
+
     private KernelFunction<String> getKernelTemplate() {
         return KernelFunction.<String>createFromPrompt("""
                 {{$chatHistory}}
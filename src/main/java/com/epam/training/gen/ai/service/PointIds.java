@@ -0,0 +1,49 @@
+package com.epam.training.gen.ai.service;
+
+import com.epam.training.gen.ai.chunking.TextChunk;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Derives the point ids from the embedded content, so the same content always gets the same id.
+ * <p>
+ * The ids are name-based UUIDs over the embeddings model and the text, and for document chunks also over the
+ * document id and the position of the chunk. Storing the same content twice replaces the point instead of adding a
+ * duplicate, and the content already stored can be found by id before it is embedded again.
+ */
+final class PointIds {
+    private static final char SEPARATOR = '\0';
+
+    private PointIds() {
+    }
+
+    /**
+     * Creates the id of a plain text.
+     *
+     * @param model the embeddings model
+     * @param text  the embedded text
+     * @return the point id
+     */
+    static String of(String model, String text) {
+        return uuid(model + SEPARATOR + text);
+    }
+
+    /**
+     * Creates the id of a document chunk. The id covers the position of the chunk as well as its text, so the same
+     * text repeated within a document is stored once per occurrence, and a point found by id already has the
+     * payload the chunk would be stored with.
+     *
+     * @param model the embeddings model
+     * @param chunk the embedded chunk
+     * @return the point id
+     */
+    static String of(String model, TextChunk chunk) {
+        return uuid(model + SEPARATOR + chunk.docId() + SEPARATOR + chunk.index() + SEPARATOR + chunk.startOffset()
+                + SEPARATOR + chunk.endOffset() + SEPARATOR + chunk.text());
+    }
+
+    private static String uuid(String name) {
+        return UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+}
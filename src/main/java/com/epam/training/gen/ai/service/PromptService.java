@@ -1,79 +1,195 @@
 package com.epam.training.gen.ai.service;
 
-import com.azure.ai.openai.OpenAIAsyncClient;
+import com.epam.training.gen.ai.cache.CompletionCache;
+import com.epam.training.gen.ai.cache.SemanticResponseCache;
+import com.epam.training.gen.ai.configuration.ClientOpenAiProperties;
+import com.epam.training.gen.ai.history.ChatHistoryManager;
+import com.epam.training.gen.ai.history.Conversation;
+import com.epam.training.gen.ai.history.ConversationStore;
 import com.epam.training.gen.ai.model.ChatbotResponse;
-import com.microsoft.semantickernel.Kernel;
+import com.epam.training.gen.ai.model.PromptResult;
+import com.epam.training.gen.ai.routing.DeploymentRateLimiter;
+import com.epam.training.gen.ai.routing.DeploymentRouter;
+import com.epam.training.gen.ai.routing.ModelRouter;
+import com.microsoft.semantickernel.orchestration.FunctionResult;
 import com.microsoft.semantickernel.orchestration.InvocationContext;
-import com.microsoft.semantickernel.semanticfunctions.KernelFunction;
 import com.microsoft.semantickernel.semanticfunctions.KernelFunctionArguments;
-import com.microsoft.semantickernel.services.chatcompletion.ChatCompletionService;
+import com.microsoft.semantickernel.services.KernelContent;
 import com.microsoft.semantickernel.services.chatcompletion.ChatHistory;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Lookup;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
-public abstract class PromptService {
+public class PromptService {
+    private static final String HISTORY_TEMPLATE = """
+            {{$chatHistory}}
+            <message role="user">{{$userPrompt}}</message>""";
+
     private final InvocationContext invocationContext;
-    private final ChatHistory chatHistory;
-    private final OpenAIAsyncClient openAIAsyncClient;
+    private final ConversationStore conversationStore;
+    private final ChatHistoryManager chatHistoryManager;
+    private final ChatModelRegistry chatModelRegistry;
+    private final ClientOpenAiProperties clientOpenAiProperties;
+    private final SemanticResponseCache semanticResponseCache;
+    private final CompletionCache completionCache;
+    private final VectorDbService vectorDbService;
+    private final DeploymentRouter deploymentRouter;
+    private final ModelRouter modelRouter;
+    private final DeploymentRateLimiter rateLimiter;
 
-    @Lookup
-    protected abstract ChatCompletionService getChatCompletionService(OpenAIAsyncClient openAIAsyncClient,
-                                                                      String deploymentName);
+    /**
+     * Send a simple prompt to Azure OpenAI.
+     * <p>
+     * When the completion cache is enabled, the response of a previous identical prompt with the same model and
+     * settings is returned instead, and identical prompts sent at the same time share a single completion. When the
+     * semantic cache is enabled, the response of a previous prompt with the same meaning is returned too.
+     *
+     * @param userPrompt prompt send by user
+     * @param model      AI Model to use
+     * @return the response from the AI Assistant and whether it came from the cache
+     */
+    public PromptResult sendSimplePrompt(String userPrompt, String model) {
+        int promptTokens = modelRouter.promptTokens(userPrompt);
+        String deployment = modelRouter.resolve(model, promptTokens);
+        if (completionCache.enabled()) {
+            String cached = completionCache.getIfPresent(deployment, userPrompt);
+            if (cached != null) {
+                return new PromptResult(new ChatbotResponse(cached), true);
+            }
+        }
+        if (!semanticResponseCache.enabled()) {
+            return new PromptResult(complete(userPrompt, promptTokens, deployment), false);
+        }
 
-    @Lookup("simpleKernelBean")
-    protected abstract Kernel getKernel(ChatCompletionService chatCompletionService);
+        String partition = deployment + "|" + clientOpenAiProperties.genAi();
+        float[] embedding = vectorDbService.getEmbeddings(userPrompt).block().get(0).embedding();
+        String cached = semanticResponseCache.get(partition, embedding);
+        if (cached != null) {
+            return new PromptResult(new ChatbotResponse(cached), true);
+        }
+
+        var response = complete(userPrompt, promptTokens, deployment);
+        semanticResponseCache.put(partition, embedding, response.response());
+        return new PromptResult(response, false);
+    }
 
     /**
-     * Send a simple prompt to Azure OpenAI.
+     * Send a simple prompt to Azure OpenAI and stream the response as it is generated.
+     * <p>
+     * When the semantic cache is enabled, the response of a previous prompt with the same meaning, model and
+     * settings is emitted at once instead, and a complete streamed response is added to the cache.
      *
      * @param userPrompt prompt send by user
      * @param model      AI Model to use
-     * @return the response from the AI Assistant
+     * @return the pieces of the response, cancelling the subscription cancels the Azure OpenAI request
      */
-    public ChatbotResponse sendSimplePrompt(String userPrompt, String model) {
+    public Flux<String> streamSimplePrompt(String userPrompt, String model) {
         var chatHistory = new ChatHistory();
         chatHistory.addUserMessage(userPrompt);
-        ChatCompletionService chatCompletionService = getChatCompletionService(openAIAsyncClient, model);
-        var response = chatCompletionService
-                .getChatMessageContentsAsync(chatHistory,
-                        getKernel(chatCompletionService),
-                        invocationContext).block();
+        int promptTokens = modelRouter.promptTokens(userPrompt);
+        String deployment = modelRouter.resolve(model, promptTokens);
+        if (!semanticResponseCache.enabled()) {
+            return stream(chatHistory, promptTokens, deployment);
+        }
 
-        var message = response.stream()
-                .map(messageContent -> messageContent.getContent())
-                .collect(Collectors.joining("\n"));
+        String partition = deployment + "|" + clientOpenAiProperties.genAi();
+        return vectorDbService.getEmbeddings(userPrompt).flatMapMany(embeddings -> {
+            float[] embedding = embeddings.get(0).embedding();
+            String cached = semanticResponseCache.get(partition, embedding);
+            if (cached != null) {
+                return Flux.just(cached);
+            }
+            var response = new StringBuilder();
+            return stream(chatHistory, promptTokens, deployment)
+                    .doOnNext(response::append)
+                    .doOnComplete(() -> semanticResponseCache.put(partition, embedding, response.toString()));
+        });
+    }
 
-        return new ChatbotResponse(message);
+    private ChatbotResponse complete(String userPrompt, int promptTokens, String model) {
+        var message = completionCache.enabled()
+                ? completionCache.get(model, userPrompt, () -> requestCompletion(userPrompt, promptTokens, model))
+                : requestCompletion(userPrompt, promptTokens, model);
+        return new ChatbotResponse(message.block());
+    }
+
+    private Mono<String> requestCompletion(String userPrompt, int promptTokens, String model) {
+        var chatHistory = new ChatHistory();
+        chatHistory.addUserMessage(userPrompt);
+        return deploymentRouter.route(model, deployment -> rateLimiter.limit(deployment, promptTokens,
+                () -> modelRouter.observe(deployment, promptTokens, chatModelRegistry.chatCompletionService(deployment)
+                        .getChatMessageContentsAsync(chatHistory,
+                                chatModelRegistry.kernel(deployment),
+                                invocationContext)
+                        .map(response -> response.stream()
+                                .map(messageContent -> messageContent.getContent())
+                                .collect(Collectors.joining("\n"))))));
     }
 
     /**
      * Send a prompt with history to Azure OpenAI.
      *
-     * @param userPrompt prompt send by user
-     * @param model      AI Model to use
+     * @param conversationId identifier of the conversation
+     * @param userPrompt     prompt send by user
+     * @param model          AI Model to use
      * @return the response from the AI Assistant
      */
-    public ChatbotResponse sendPromptWithHistory(String userPrompt, String model) {
-        var response = getKernel(getChatCompletionService(openAIAsyncClient, model))
-                .invokeAsync(getKernelTemplate())
-                .withArguments(getKernelFunctionArguments(chatHistory, userPrompt)).block();
+    public ChatbotResponse sendPromptWithHistory(String conversationId, String userPrompt, String model) {
+        Conversation conversation = conversationStore.get(conversationId);
+        ChatHistory chatHistory = chatHistoryManager.history(conversation, userPrompt);
+        int promptTokens = modelRouter.promptTokens(chatHistory) + modelRouter.promptTokens(userPrompt);
+        String deployment = modelRouter.resolve(model, promptTokens);
+        var arguments = getKernelFunctionArguments(chatHistory, userPrompt);
+        var response = deploymentRouter.route(deployment, target -> rateLimiter.limit(target, promptTokens,
+                        () -> modelRouter.observe(target, promptTokens, chatModelRegistry.kernel(target)
+                                .invokeAsync(chatModelRegistry.function(HISTORY_TEMPLATE))
+                                .withArguments(arguments)
+                                .map(FunctionResult::getResult))))
+                .block();
 
         // Add messages to history
-        chatHistory.addUserMessage(userPrompt);
-        chatHistory.addAssistantMessage(response.getResult());
+        chatHistoryManager.record(conversation, deployment, userPrompt, response);
+
+        return new ChatbotResponse(response);
+    }
+
+    /**
+     * Send a prompt with history to Azure OpenAI and stream the response as it is generated.
+     * <p>
+     * The prompt and the response are added to the history once the response is complete, so a cancelled or
+     * failed response leaves the history untouched.
+     *
+     * @param conversationId identifier of the conversation
+     * @param userPrompt     prompt send by user
+     * @param model          AI Model to use
+     * @return the pieces of the response, cancelling the subscription cancels the Azure OpenAI request
+     */
+    public Flux<String> streamPromptWithHistory(String conversationId, String userPrompt, String model) {
+        Conversation conversation = conversationStore.get(conversationId);
+        ChatHistory messages = chatHistoryManager.history(conversation, userPrompt);
+        messages.addUserMessage(userPrompt);
+        int promptTokens = modelRouter.promptTokens(messages);
+        String deployment = modelRouter.resolve(model, promptTokens);
 
-        return new ChatbotResponse(response.getResult());
+        var response = new StringBuilder();
+        return stream(messages, promptTokens, deployment)
+                .doOnNext(response::append)
+                .doOnComplete(() -> chatHistoryManager.record(conversation, deployment, userPrompt,
+                        response.toString()));
     }
 
-    private KernelFunction<String> getKernelTemplate() {
-        return KernelFunction.<String>createFromPrompt("""
-                {{$chatHistory}}
-                <message role="user">{{$userPrompt}}</message>""").build();
+    private Flux<String> stream(ChatHistory chatHistory, int promptTokens, String model) {
+        return deploymentRouter.routeMany(model, target -> rateLimiter.limitMany(target, promptTokens,
+                () -> modelRouter.observe(target, promptTokens, chatModelRegistry.chatCompletionService(target)
+                        .getStreamingChatMessageContentsAsync(chatHistory,
+                                chatModelRegistry.kernel(target),
+                                invocationContext)
+                        .mapNotNull(KernelContent::getContent))));
     }
 
     private KernelFunctionArguments getKernelFunctionArguments(ChatHistory chatHistory, String userPrompt) {
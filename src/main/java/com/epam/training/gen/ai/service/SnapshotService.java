@@ -0,0 +1,107 @@
+package com.epam.training.gen.ai.service;
+
+import com.epam.training.gen.ai.configuration.ClientOpenAiProperties;
+import com.epam.training.gen.ai.configuration.DbProperties;
+import com.epam.training.gen.ai.configuration.IngestionProperties;
+import com.epam.training.gen.ai.model.SnapshotSummary;
+import com.epam.training.gen.ai.vector.SnapshotFile;
+import com.epam.training.gen.ai.vector.VectorStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Service that backs up the collection to a {@link SnapshotFile} and restores it, so the vectors can be moved
+ * between deployments and vector stores without paying for the embeddings again.
+ * <p>
+ * The export scrolls the collection page by page and the import upserts the records in chunks through
+ * {@link VectorDbService}, so neither of them holds the whole collection in memory. The snapshots are kept in
+ * {@code application.db.snapshot-directory}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SnapshotService {
+    private final VectorStore vectorStore;
+    private final VectorDbService vectorDbService;
+    private final ClientOpenAiProperties clientOpenAiProperties;
+
+    /**
+     * Writes every record of the collection, with its vector and payload, to a snapshot. An existing snapshot with
+     * the same name is only replaced once the export succeeds.
+     *
+     * @param name the snapshot file name
+     * @return a {@link Mono} with the amount of records exported
+     */
+    public Mono<SnapshotSummary> exportSnapshot(String name) {
+        DbProperties db = clientOpenAiProperties.application().db();
+        int pageSize = clientOpenAiProperties.application().ingestion().upsertChunkSize();
+        return Mono.usingWhen(
+                        Mono.fromCallable(() -> SnapshotFile.create(resolve(name), db.vectorSize())),
+                        writer -> vectorStore.scroll(pageSize, true)
+                                .publishOn(Schedulers.boundedElastic())
+                                .doOnNext(writer::write)
+                                .then(Mono.fromCallable(writer::commit)),
+                        writer -> Mono.empty(),
+                        (writer, error) -> Mono.fromRunnable(() -> abort(writer)),
+                        writer -> Mono.fromRunnable(() -> abort(writer)))
+                .map(records -> new SnapshotSummary(name, records))
+                .doOnNext(summary -> log.info("Snapshot [{}] exported with {} records", name, summary.records()))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Upserts every record of a snapshot into the collection. Records with the same id are replaced.
+     *
+     * @param name the snapshot file name
+     * @return a {@link Mono} with the amount of records imported
+     */
+    public Mono<SnapshotSummary> importSnapshot(String name) {
+        DbProperties db = clientOpenAiProperties.application().db();
+        IngestionProperties ingestion = clientOpenAiProperties.application().ingestion();
+        return Flux.using(
+                        () -> SnapshotFile.open(resolve(name)),
+                        reader -> {
+                            if (reader.dimension() != db.vectorSize()) {
+                                return Flux.error(new IllegalStateException("Snapshot [" + name + "] has vectors of "
+                                        + reader.dimension() + " dimensions but the collection expects "
+                                        + db.vectorSize()));
+                            }
+                            return Flux.fromIterable(() -> reader);
+                        },
+                        this::closeQuietly)
+                .subscribeOn(Schedulers.boundedElastic())
+                .buffer(ingestion.upsertChunkSize())
+                .flatMapSequential(records -> vectorDbService.saveVectorAsync(records).thenReturn(records.size()),
+                        ingestion.concurrency())
+                .reduce(0L, Long::sum)
+                .map(records -> new SnapshotSummary(name, records))
+                .doOnNext(summary -> log.info("Snapshot [{}] imported with {} records", name, summary.records()));
+    }
+
+    private Path resolve(String name) {
+        return Path.of(clientOpenAiProperties.application().db().snapshotDirectory()).resolve(name);
+    }
+
+    private void abort(SnapshotFile.Writer writer) {
+        try {
+            writer.abort();
+        } catch (IOException e) {
+            log.warn("Unable to delete the incomplete snapshot", e);
+        }
+    }
+
+    private void closeQuietly(SnapshotFile.Reader reader) {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            log.warn("Unable to close the snapshot", e);
+        }
+    }
+}
@@ -1,36 +1,46 @@
 package com.epam.training.gen.ai.service;
 
 import com.azure.ai.openai.OpenAIAsyncClient;
-import com.azure.ai.openai.models.EmbeddingItem;
-import com.azure.ai.openai.models.Embeddings;
-import com.azure.ai.openai.models.EmbeddingsOptions;
+import com.azure.core.http.rest.RequestOptions;
+import com.azure.core.http.rest.Response;
+import com.epam.training.gen.ai.cache.EmbeddingCache;
+import com.epam.training.gen.ai.chunking.DocumentChunker;
+import com.epam.training.gen.ai.chunking.TextChunk;
 import com.epam.training.gen.ai.configuration.ClientOpenAiProperties;
-import io.qdrant.client.QdrantClient;
-import io.qdrant.client.grpc.Collections;
-import io.qdrant.client.grpc.Collections.VectorParams;
-import io.qdrant.client.grpc.Points.PointStruct;
-import io.qdrant.client.grpc.Points.ScoredPoint;
-import io.qdrant.client.grpc.Points.SearchPoints;
+import com.epam.training.gen.ai.configuration.HybridSearchProperties;
+import com.epam.training.gen.ai.configuration.IngestionProperties;
+import com.epam.training.gen.ai.model.BatchSearchQuery;
+import com.epam.training.gen.ai.model.EmbeddingVector;
+import com.epam.training.gen.ai.model.SearchOptions;
+import com.epam.training.gen.ai.search.Bm25Index;
+import com.epam.training.gen.ai.search.ReciprocalRankFusion;
+import com.epam.training.gen.ai.search.Reranker;
+import com.epam.training.gen.ai.search.ScoredId;
+import com.epam.training.gen.ai.vector.VectorMatch;
+import com.epam.training.gen.ai.vector.VectorQuery;
+import com.epam.training.gen.ai.vector.VectorRecord;
+import com.epam.training.gen.ai.vector.VectorStore;
+import com.epam.training.gen.ai.vector.WriteBehindBuffer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.ExecutionException;
-
-import static io.qdrant.client.PointIdFactory.id;
-import static io.qdrant.client.ValueFactory.value;
-import static io.qdrant.client.VectorsFactory.vectors;
-import static io.qdrant.client.WithPayloadSelectorFactory.enable;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
- * Service class for processing text into embeddings and interacting with Qdrant for vector storage and retrieval.
+ * Service class for processing text into embeddings and interacting with the {@link VectorStore} for vector storage
+ * and retrieval.
  * <p>
- * This service converts text into embeddings using Azure OpenAI and saves these vectors in a Qdrant collection.
+ * This service converts text into embeddings using Azure OpenAI and saves these vectors in a collection.
  * It also provides functionality to search for similar vectors based on input text.
  */
 
@@ -38,131 +48,427 @@ import static io.qdrant.client.WithPayloadSelectorFactory.enable;
 @Service
 @RequiredArgsConstructor
 public class VectorDbService {
+    private static final String TEXT_FIELD = "text";
     private final OpenAIAsyncClient openAIAsyncClient;
-    private final QdrantClient qdrantClient;
+    private final VectorStore vectorStore;
     private final ClientOpenAiProperties clientOpenAiProperties;
+    private final EmbeddingCache embeddingCache;
+    private final DocumentChunker documentChunker;
+    private final Bm25Index bm25Index;
+    private final WriteBehindBuffer writeBehindBuffer;
+    private final Reranker reranker;
+
+    /**
+     * Creates a new collection with the configured vector parameters.
+     *
+     * @return a {@link Mono} that completes once the collection is created
+     */
+    public Mono<Void> createCollection() {
+        return vectorStore.createCollection();
+    }
 
     /**
-     * Creates a new collection in Qdrant with specified vector parameters.
+     * Applies the configured tuning settings to the existing collection, keeping the stored vectors.
      *
-     * @throws ExecutionException   if the collection creation operation fails
-     * @throws InterruptedException if the thread is interrupted during execution
+     * @return a {@link Mono} that completes once the settings are applied
      */
-    public void createCollection() throws ExecutionException, InterruptedException {
-        var result = qdrantClient.createCollectionAsync(
-                        clientOpenAiProperties.application().db().collection(),
-                        VectorParams.newBuilder()
-                                .setDistance(Collections.Distance.Cosine)
-                                .setSize(clientOpenAiProperties.application().db().vectorSize())
-                                .build())
-                .get();
-        log.info("Collection was created: [{}]", result.getResult());
+    public Mono<Void> reconcileCollection() {
+        return vectorStore.reconcileCollection();
     }
 
     /**
-     * Processes the input text into embeddings, transforms them into vector points,
-     * and saves them in the Qdrant collection.
+     * Splits the input text into chunks, processes them into embeddings, transforms them into vector records,
+     * and saves them in the collection. The chunks are embedded in batches, several batches at a time.
+     * <p>
+     * The document id is derived from the text, so saving the same text again finds all its chunks already stored
+     * and neither embeds nor upserts them.
      *
      * @param text the text to be processed into embeddings
-     * @throws ExecutionException   if the vector saving operation fails
-     * @throws InterruptedException if the thread is interrupted during execution
-     */
-    public List<EmbeddingItem> persistEmbeddings(String text) throws ExecutionException, InterruptedException {
-        var embeddings = getEmbeddings(text);
-        var points = new ArrayList<List<Float>>();
-        embeddings.forEach(
-                embeddingItem -> {
-                    var values = new ArrayList<>(embeddingItem.getEmbedding());
-                    points.add(values);
-                });
+     * @return a {@link Mono} with the stored embeddings, one per chunk
+     */
+    public Mono<List<EmbeddingVector>> persistEmbeddings(String text) {
+        IngestionProperties ingestion = clientOpenAiProperties.application().ingestion();
+        String docId = PointIds.of(clientOpenAiProperties.clientOpenAiEmbeddingModel(), text);
+        return documentChunker.chunk(docId, new StringReader(text))
+                .buffer(ingestion.batchSize())
+                .flatMapSequential(this::toChunkRecords, ingestion.concurrency())
+                .flatMapIterable(records -> records)
+                .collectList()
+                .flatMap(this::saveChunkRecords);
+    }
 
-        var pointStructs = new ArrayList<PointStruct>();
-        points.forEach(point -> {
-            var pointStruct = getPointStruct(text, point);
-            pointStructs.add(pointStruct);
-        });
+    /**
+     * Searches the collection for vectors similar to the input text.
+     * <p>
+     * The input text is converted to embeddings, and a search is performed based on the vector similarity.
+     * When the hybrid search is enabled, a BM25 search over the stored texts runs at the same time and both
+     * rankings are merged with reciprocal rank fusion; the scores are then the fused scores. The score threshold
+     * always applies to the vector similarity, so with the hybrid search it only filters the vector candidates.
+     * When the re-ranking is enabled, the vector matches are reordered by their exact similarity, see
+     * {@link Reranker}.
+     *
+     * @param text    the text to search for similar vectors
+     * @param options the page, score threshold, payload fields and index overrides of the search
+     * @return a {@link Mono} with the matches representing similar vectors
+     */
+    public Mono<List<VectorMatch>> search(String text, SearchOptions options) {
+        int limit = options.limit() == null ? clientOpenAiProperties.application().db().limit() : options.limit();
+        var query = VectorQuery.builder()
+                .limit(limit)
+                .offset(options.offset())
+                .scoreThreshold(options.scoreThreshold())
+                .withPayload(!options.payloadFields().isEmpty())
+                .payloadFields(options.payloadFields())
+                .hnswEf(options.hnswEf())
+                .exact(options.exact())
+                .build();
+        if (!bm25Index.enabled()) {
+            return embed(text)
+                    .flatMap(vector -> searchVector(query.toBuilder().vector(vector).build()));
+        }
 
-        saveVector(pointStructs);
+        HybridSearchProperties hybrid = clientOpenAiProperties.application().hybrid();
+        int candidates = Math.max(options.offset() + limit, hybrid.candidates());
+        Mono<List<VectorMatch>> dense = embed(text)
+                .flatMap(vector -> searchVector(query.toBuilder()
+                        .vector(vector)
+                        .limit(candidates)
+                        .offset(0)
+                        .build()));
+        Mono<List<ScoredId>> lexical = Mono.fromCallable(() -> bm25Index.search(text, candidates))
+                .subscribeOn(Schedulers.parallel());
 
-        return embeddings;
+        return Mono.zip(dense, lexical)
+                .flatMap(results -> fuse(results.getT1(), results.getT2(), hybrid.rankConstant(), query));
     }
 
     /**
-     * Searches the Qdrant collection for vectors similar to the input text.
+     * Searches the collection for the vectors similar to several texts at once.
      * <p>
-     * The input text is converted to embeddings, and a search is performed based on the vector similarity.
+     * The texts missing from the {@link EmbeddingCache} are embedded within a single request, and all the
+     * searches are sent to the {@link VectorStore} as one batch.
      *
-     * @param text the text to search for similar vectors
-     * @return a list of scored points representing similar vectors
-     * @throws ExecutionException   if the search operation fails
-     * @throws InterruptedException if the thread is interrupted during execution
+     * @param queries the texts to search for, with their own limit, score threshold and search overrides
+     * @return a {@link Mono} with the matches of every query, in the same order as the queries
      */
-    public List<ScoredPoint> search(String text) throws ExecutionException, InterruptedException {
-        var embeddings = retrieveEmbeddings(text).block();
-        var vectors = new ArrayList<Float>();
-        embeddings.getData().forEach(embeddingItem ->
-                vectors.addAll(embeddingItem.getEmbedding())
-        );
-        return qdrantClient
-                .searchAsync(
-                        SearchPoints.newBuilder()
-                                .setCollectionName(clientOpenAiProperties.application().db().collection())
-                                .addAllVector(vectors)
-                                .setWithPayload(enable(true))
-                                .setLimit(clientOpenAiProperties.application().db().limit())
-                                .build())
-                .get();
+    public Mono<List<List<VectorMatch>>> searchBatch(List<BatchSearchQuery> queries) {
+        int defaultLimit = clientOpenAiProperties.application().db().limit();
+        return embedAll(queries.stream().map(BatchSearchQuery::text).toList())
+                .flatMap(vectors -> {
+                    var vectorQueries = new ArrayList<VectorQuery>(queries.size());
+                    for (int i = 0; i < queries.size(); i++) {
+                        BatchSearchQuery query = queries.get(i);
+                        vectorQueries.add(VectorQuery.builder()
+                                .vector(vectors.get(i))
+                                .withPayload(true)
+                                .payloadFields(List.of(TEXT_FIELD))
+                                .limit(query.limit() == null ? defaultLimit : query.limit())
+                                .scoreThreshold(query.scoreThreshold())
+                                .hnswEf(query.hnswEf())
+                                .exact(query.exact())
+                                .build());
+                    }
+                    if (!reranker.enabled()) {
+                        return vectorStore.searchBatch(vectorQueries);
+                    }
+                    return vectorStore.searchBatch(vectorQueries.stream().map(this::toCandidateQuery).toList())
+                            .map(results -> {
+                                var matches = new ArrayList<List<VectorMatch>>(results.size());
+                                for (int i = 0; i < results.size(); i++) {
+                                    matches.add(rerank(vectorQueries.get(i), results.get(i)));
+                                }
+                                return matches;
+                            });
+                });
     }
 
     /**
-     * Retrieves the embeddings for the given text using Azure OpenAI.
+     * Retrieves the embeddings for the given text using Azure OpenAI, or from the {@link EmbeddingCache}
+     * when the text was already embedded.
      *
      * @param text the text to be embedded
-     * @return a list of {@link EmbeddingItem} representing the embeddings
+     * @return a {@link Mono} with the list of {@link EmbeddingVector} representing the embeddings
+     */
+    public Mono<List<EmbeddingVector>> getEmbeddings(String text) {
+        return embed(text).map(vector -> List.of(new EmbeddingVector(0, vector)));
+    }
+
+    /**
+     * Retrieves the embeddings for a batch of texts within a single Azure OpenAI request. Bulk loads bypass the
+     * {@link EmbeddingCache} so they do not evict the vectors of frequent searches.
+     *
+     * @param texts the texts to be embedded
+     * @return a {@link Mono} with one vector per text, in the same order as the input
      */
-    public List<EmbeddingItem> getEmbeddings(String text) {
-        var embeddings = retrieveEmbeddings(text);
-        return embeddings.block().getData();
+    public Mono<List<float[]>> getEmbeddingsAsync(List<String> texts) {
+        return retrieveEmbeddings(texts);
     }
 
+    /**
+     * Finds which of the given points are already stored, within a single request.
+     *
+     * @param ids the point ids to look for
+     * @return a {@link Mono} with the ids that are stored
+     */
+    public Mono<Set<String>> findExistingIds(List<String> ids) {
+        return vectorStore.retrieve(ids, false)
+                .map(records -> records.stream().map(VectorRecord::id).collect(Collectors.toSet()));
+    }
 
     /**
-     * Saves the list of point structures (vectors) to the Qdrant collection.
+     * Saves the list of vector records to the collection without blocking. The records go through the
+     * {@link WriteBehindBuffer}, so they may be stored together with the records of other requests.
      *
-     * @param pointStructs the list of vectors to be saved
-     * @throws InterruptedException if the thread is interrupted during execution
-     * @throws ExecutionException   if the saving operation fails
+     * @param records the list of vectors to be saved
+     * @return a {@link Mono} that completes once the records are stored
      */
-    private void saveVector(ArrayList<PointStruct> pointStructs) throws InterruptedException, ExecutionException {
-        var updateResult = qdrantClient
-                .upsertAsync(clientOpenAiProperties.application().db().collection(), pointStructs)
-                .get();
-        log.info(updateResult.getStatus().name());
+    public Mono<Void> saveVectorAsync(List<VectorRecord> records) {
+        return writeBehindBuffer.submit(records)
+                .doOnSuccess(ignored -> bm25Index.add(records));
     }
 
     /**
-     * Constructs a point structure from a list of float values representing a vector.
+     * Searches the {@link VectorStore}, in two phases when the re-ranking is enabled: an oversampled set of
+     * candidates is fetched with their vectors and reordered by the {@link Reranker}.
      *
-     * @param text  the text payload
-     * @param point the vector values
-     * @return a {@link PointStruct} object containing the vector and associated metadata
+     * @param query the vector search
+     * @return a {@link Mono} with the requested page of matches
+     */
+    private Mono<List<VectorMatch>> searchVector(VectorQuery query) {
+        if (!reranker.enabled()) {
+            return vectorStore.search(query);
+        }
+        return vectorStore.search(toCandidateQuery(query)).map(candidates -> rerank(query, candidates));
+    }
+
+    /**
+     * Builds the first phase of a re-ranked search. The score threshold is left out since it applies to the
+     * exact scores.
      */
-    private PointStruct getPointStruct(String text, List<Float> point) {
-        return PointStruct.newBuilder()
-                .setId(id(UUID.randomUUID()))
-                .setVectors(vectors(point))
-                .putAllPayload(Map.of("text", value(text)))
+    private VectorQuery toCandidateQuery(VectorQuery query) {
+        return query.toBuilder()
+                .limit(reranker.candidates(query.offset() + query.limit()))
+                .offset(0)
+                .scoreThreshold(null)
+                .withVector(true)
                 .build();
     }
 
     /**
-     * Retrieves the embeddings for the given text asynchronously from Azure OpenAI.
+     * Reorders the candidates of a search and keeps its page, above its score threshold.
+     */
+    private List<VectorMatch> rerank(VectorQuery query, List<VectorMatch> candidates) {
+        var ranked = reranker.rerank(query.vector(), candidates, query.offset() + query.limit());
+        var matches = new ArrayList<VectorMatch>(Math.min(query.limit(), ranked.size()));
+        int skipped = 0;
+        for (VectorMatch match : ranked) {
+            if (query.scoreThreshold() != null && match.score() < query.scoreThreshold()) {
+                continue;
+            }
+            if (skipped++ < query.offset()) {
+                continue;
+            }
+            matches.add(query.withVector()
+                    ? match
+                    : new VectorMatch(match.id(), match.score(), match.payload(), null));
+        }
+        return matches;
+    }
+
+    /**
+     * Merges the vector and the lexical rankings and keeps the requested page. The matches found only by the
+     * lexical search are read from the {@link VectorStore} to get their payload.
+     */
+    private Mono<List<VectorMatch>> fuse(List<VectorMatch> dense, List<ScoredId> lexical, int rankConstant,
+                                         VectorQuery query) {
+        var ranking = ReciprocalRankFusion.fuse(rankConstant, query.offset() + query.limit(), List.of(
+                dense.stream().map(VectorMatch::id).toList(),
+                lexical.stream().map(ScoredId::id).toList()));
+        var fused = ranking.subList(Math.min(query.offset(), ranking.size()), ranking.size());
+
+        Map<String, VectorMatch> denseById = dense.stream()
+                .collect(Collectors.toMap(VectorMatch::id, Function.identity(), (first, second) -> first));
+        var missing = fused.stream()
+                .map(ScoredId::id)
+                .filter(id -> !denseById.containsKey(id))
+                .toList();
+        Mono<Map<String, Map<String, Object>>> payloads = missing.isEmpty()
+                ? Mono.just(Map.of())
+                : vectorStore.retrieve(missing, false).map(records -> {
+                    var byId = new HashMap<String, Map<String, Object>>(records.size());
+                    records.forEach(record -> byId.put(record.id(), query.project(record.payload())));
+                    return byId;
+                });
+
+        return payloads.map(missingPayloads -> {
+            var matches = new ArrayList<VectorMatch>(fused.size());
+            fused.forEach(scored -> {
+                VectorMatch match = denseById.get(scored.id());
+                Map<String, Object> payload = match != null ? match.payload() : missingPayloads.get(scored.id());
+                if (payload != null) {
+                    matches.add(new VectorMatch(scored.id(), scored.score(), payload, null));
+                }
+            });
+            return matches;
+        });
+    }
+
+    /**
+     * Builds the records of a batch of chunks. The chunks already stored are read back with their vectors within a
+     * single request, only the others are embedded.
+     *
+     * @param chunks the chunks of the batch
+     * @return a {@link Mono} with one record per chunk, in the same order
+     */
+    private Mono<List<ChunkRecord>> toChunkRecords(List<TextChunk> chunks) {
+        var ids = chunks.stream().map(this::getPointId).toList();
+        return vectorStore.retrieve(ids, true)
+                .flatMap(stored -> {
+                    var storedVectors = new HashMap<String, float[]>(stored.size());
+                    stored.forEach(record -> storedVectors.put(record.id(), record.vector()));
+                    var missingTexts = new ArrayList<String>(chunks.size());
+                    for (int i = 0; i < chunks.size(); i++) {
+                        if (!storedVectors.containsKey(ids.get(i))) {
+                            missingTexts.add(chunks.get(i).text());
+                        }
+                    }
+                    Mono<List<float[]>> embedded = missingTexts.isEmpty()
+                            ? Mono.just(List.of())
+                            : embedAll(missingTexts);
+                    return embedded.map(vectors -> {
+                        var records = new ArrayList<ChunkRecord>(chunks.size());
+                        int next = 0;
+                        for (int i = 0; i < chunks.size(); i++) {
+                            TextChunk chunk = chunks.get(i);
+                            float[] vector = storedVectors.get(ids.get(i));
+                            records.add(vector != null
+                                    ? new ChunkRecord(chunk, vector, null)
+                                    : toChunkRecord(chunk, vectors.get(next++)));
+                        }
+                        return records;
+                    });
+                });
+    }
+
+    private ChunkRecord toChunkRecord(TextChunk chunk, float[] vector) {
+        return new ChunkRecord(chunk, vector, getChunkRecord(chunk, vector));
+    }
+
+    /**
+     * Saves the records of all the chunks of a document at once, except the ones that were already stored.
+     *
+     * @param records the chunk records, in document order
+     * @return a {@link Mono} with the stored embeddings, emitted once the records are stored
+     */
+    private Mono<List<EmbeddingVector>> saveChunkRecords(List<ChunkRecord> records) {
+        var embeddings = new ArrayList<EmbeddingVector>(records.size());
+        var vectorRecords = new ArrayList<VectorRecord>(records.size());
+        records.forEach(record -> {
+            embeddings.add(new EmbeddingVector(record.chunk().index(), record.vector()));
+            if (record.record() != null) {
+                vectorRecords.add(record.record());
+            }
+        });
+
+        if (vectorRecords.isEmpty()) {
+            return Mono.just(embeddings);
+        }
+        return saveVectorAsync(vectorRecords).thenReturn(embeddings);
+    }
+
+    /**
+     * Constructs a vector record from the vector values of a text.
+     *
+     * @param text   the text payload
+     * @param vector the vector values
+     * @return a {@link VectorRecord} object containing the vector and associated metadata
+     */
+    VectorRecord getVectorRecord(String text, float[] vector) {
+        return new VectorRecord(getPointId(text), vector, Map.of(TEXT_FIELD, text));
+    }
+
+    /**
+     * Constructs a vector record from the vector values of a document chunk.
+     *
+     * @param chunk  the chunk, stored in the payload with its position within the document
+     * @param vector the vector values
+     * @return a {@link VectorRecord} object containing the vector and associated metadata
+     */
+    VectorRecord getChunkRecord(TextChunk chunk, float[] vector) {
+        return new VectorRecord(getPointId(chunk), vector, Map.of(
+                TEXT_FIELD, chunk.text(),
+                "doc_id", chunk.docId(),
+                "chunk_index", chunk.index(),
+                "start_offset", chunk.startOffset(),
+                "end_offset", chunk.endOffset()));
+    }
+
+    /**
+     * Derives the id of the point that stores a text.
+     *
+     * @param text the embedded text
+     * @return the point id, the same for the same text and embeddings model
+     */
+    String getPointId(String text) {
+        return PointIds.of(clientOpenAiProperties.clientOpenAiEmbeddingModel(), text);
+    }
+
+    /**
+     * Derives the id of the point that stores a document chunk.
+     *
+     * @param chunk the embedded chunk
+     * @return the point id, the same for the same chunk text, position, document and embeddings model
+     */
+    String getPointId(TextChunk chunk) {
+        return PointIds.of(clientOpenAiProperties.clientOpenAiEmbeddingModel(), chunk);
+    }
+
+    /**
+     * Retrieves the vectors for several texts through the {@link EmbeddingCache}, the missing ones within a
+     * single request.
+     *
+     * @param texts the texts to be embedded
+     * @return a {@link Mono} with one vector per text, in the same order as the input
+     */
+    private Mono<List<float[]>> embedAll(List<String> texts) {
+        return embeddingCache.getAll(clientOpenAiProperties.clientOpenAiEmbeddingModel(), texts,
+                this::retrieveEmbeddings);
+    }
+
+    /**
+     * Retrieves the vector for the given text through the {@link EmbeddingCache}.
      *
      * @param text the text to be embedded
-     * @return a {@link Mono} of {@link Embeddings} representing the embeddings
+     * @return a {@link Mono} with the vector values
+     */
+    private Mono<float[]> embed(String text) {
+        return embeddingCache.get(clientOpenAiProperties.clientOpenAiEmbeddingModel(), text,
+                () -> retrieveEmbeddings(List.of(text)).map(vectors -> vectors.get(0)));
+    }
+
+    /**
+     * Retrieves the embeddings for several texts asynchronously from Azure OpenAI using a single request.
+     * <p>
+     * The raw response is decoded by {@link EmbeddingsCodec} so the vectors are never boxed.
+     *
+     * @param texts the texts to be embedded
+     * @return a {@link Mono} with one vector per text, in the same order as the input
+     */
+    private Mono<List<float[]>> retrieveEmbeddings(List<String> texts) {
+        return openAIAsyncClient
+                .getEmbeddingsWithResponse(clientOpenAiProperties.clientOpenAiEmbeddingModel(),
+                        EmbeddingsCodec.encodeRequest(texts), new RequestOptions())
+                .map(Response::getValue)
+                .map(body -> EmbeddingsCodec.decodeResponse(body, texts.size()));
+    }
+
+    /**
+     * Chunk of a document with its vector.
+     *
+     * @param chunk  the chunk
+     * @param vector the vector values
+     * @param record the record to store, null if the chunk is already stored
      */
-    private Mono<Embeddings> retrieveEmbeddings(String text) {
-        var qembeddingsOptions = new EmbeddingsOptions(List.of(text));
-        return openAIAsyncClient.getEmbeddings(clientOpenAiProperties.clientOpenAiEmbeddingModel(), qembeddingsOptions);
+    private record ChunkRecord(TextChunk chunk, float[] vector, VectorRecord record) {
     }
 }
@@ -0,0 +1,41 @@
+package com.epam.training.gen.ai.util;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import reactor.core.publisher.Mono;
+
+/**
+ * Utility methods to bridge the Qdrant client futures with Project Reactor.
+ */
+public final class FutureUtils {
+
+    private FutureUtils() {
+    }
+
+    /**
+     * Adapts a {@link ListenableFuture} into a {@link Mono} without blocking any thread. Cancelling the
+     * subscription cancels the underlying future.
+     *
+     * @param future the future returned by the Qdrant client
+     * @param <T>    the future result type
+     * @return a {@link Mono} that completes when the future completes
+     */
+    public static <T> Mono<T> toMono(ListenableFuture<T> future) {
+        return Mono.create(sink -> {
+            Futures.addCallback(future, new FutureCallback<>() {
+                @Override
+                public void onSuccess(T result) {
+                    sink.success(result);
+                }
+
+                @Override
+                public void onFailure(Throwable throwable) {
+                    sink.error(throwable);
+                }
+            }, MoreExecutors.directExecutor());
+            sink.onCancel(() -> future.cancel(true));
+        });
+    }
+}
@@ -0,0 +1,35 @@
+package com.epam.training.gen.ai.util;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.HexFormat;
+
+/**
+ * Utility methods to derive the cache keys from texts.
+ */
+public final class TextDigest {
+
+    private TextDigest() {
+    }
+
+    /**
+     * Hashes a text after normalizing it, so the texts that only differ by their Unicode normalization form or by
+     * their whitespace get the same hash.
+     *
+     * @param text the text to hash
+     * @return the hex-encoded SHA-256 hash of the normalized text
+     */
+    public static String sha256(String text) {
+        var normalized = StringUtils.normalizeSpace(Normalizer.normalize(text, Normalizer.Form.NFC));
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
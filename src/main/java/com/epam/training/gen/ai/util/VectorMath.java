@@ -0,0 +1,76 @@
+package com.epam.training.gen.ai.util;
+
+/**
+ * Utility methods for the similarity of the embeddings vectors.
+ */
+public final class VectorMath {
+
+    private VectorMath() {
+    }
+
+    /**
+     * Scales a vector to unit length, so the dot product of two normalized vectors is their cosine similarity.
+     *
+     * @param vector the vector values, they are not modified
+     * @return a normalized copy of the vector, all zeros if the vector is all zeros
+     */
+    public static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        float factor = norm == 0 ? 0 : (float) (1 / Math.sqrt(norm));
+        var normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * factor;
+        }
+        return normalized;
+    }
+
+    /**
+     * Computes the dot product.
+     *
+     * @param a first vector
+     * @param b second vector, of the same size
+     * @return the dot product
+     */
+    public static float dot(float[] a, float[] b) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Computes the cosine similarity in a single loop that accumulates the dot product and both norms.
+     *
+     * @param a first vector
+     * @param b second vector, of the same size
+     * @return the cosine similarity, zero if any vector is all zeros
+     */
+    public static float cosine(float[] a, float[] b) {
+        float dot = 0;
+        float normA = 0;
+        float normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return cosine(dot, normA, normB);
+    }
+
+    /**
+     * Computes the cosine similarity from the dot product and the squared norms of two vectors.
+     *
+     * @param dot   the dot product
+     * @param normA the squared norm of the first vector
+     * @param normB the squared norm of the second vector
+     * @return the cosine similarity, zero if any norm is zero
+     */
+    public static float cosine(float dot, float normA, float normB) {
+        float denominator = (float) Math.sqrt((double) normA * normB);
+        return denominator == 0 ? 0 : dot / denominator;
+    }
+}
@@ -0,0 +1,772 @@
+package com.epam.training.gen.ai.vector;
+
+import com.epam.training.gen.ai.configuration.QuantizationType;
+import com.epam.training.gen.ai.util.VectorMath;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Hierarchical Navigable Small World graph over cosine similarity.
+ * <p>
+ * Vectors are normalized when inserted, so the similarity is a plain dot product over primitive arrays.
+ * Inserts are serialized while searches run without locks: neighbor lists are immutable arrays that are replaced
+ * on every change, and a node only becomes reachable once it is fully linked. Replacing an id marks the previous
+ * node as deleted; deleted nodes are still traversed but never returned.
+ * <p>
+ * With quantization only int8 or binary codes are kept on the heap, while the full precision vectors live in
+ * {@link OffHeapVectors}. The graph is still built with the full precision vectors; searches traverse it over the
+ * codes, collect more candidates than requested and rescore them against the full precision vectors. The file
+ * format always keeps the full precision vectors, so the quantization can be changed between restarts.
+ */
+class HnswIndex {
+    private static final int MAGIC = 0x484E5357;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 7 * Integer.BYTES;
+    private static final long WINDOW_SIZE = 1L << 30;
+    private static final int[] NO_NEIGHBORS = new int[0];
+
+    private static final ThreadLocal<Visited> VISITED = ThreadLocal.withInitial(Visited::new);
+
+    private final int dimension;
+    private final int m;
+    private final int efConstruction;
+    private final double levelFactor;
+    private final VectorQuantizer quantizer;
+    private final OffHeapVectors originals;
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+
+    private volatile Node[] nodes = new Node[64];
+    private volatile int size;
+    private volatile EntryPoint entryPoint;
+
+    HnswIndex(int dimension, int m, int efConstruction, QuantizationType quantization) {
+        this.dimension = dimension;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.levelFactor = 1 / Math.log(m);
+        this.quantizer = VectorQuantizer.of(quantization, dimension);
+        this.originals = quantizer == null ? null : new OffHeapVectors(dimension);
+    }
+
+    int size() {
+        return ids.size();
+    }
+
+    /**
+     * Inserts a vector, replacing the node with the same id if any.
+     *
+     * @param id      unique identifier
+     * @param vector  the vector values, it is copied before being normalized
+     * @param payload metadata returned with the matches
+     */
+    void insert(String id, float[] vector, Map<String, Object> payload) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Expected a vector of " + dimension + " dimensions but got "
+                    + vector.length);
+        }
+        float[] normalized = VectorMath.normalize(vector);
+        var node = new Node(id, encode(normalized), Map.copyOf(payload), randomLevel());
+
+        synchronized (writeLock) {
+            add(node, normalized);
+        }
+    }
+
+    /**
+     * Searches the nodes closest to the query.
+     *
+     * @param query        the query vector
+     * @param k            maximum amount of matches
+     * @param ef           size of the candidate list, it is raised to the amount of candidates when lower
+     * @param oversampling how many candidates per match are rescored when the index is quantized
+     * @return the matches sorted by descending similarity, their vectors are normalized
+     */
+    List<VectorMatch> search(float[] query, int k, int ef, double oversampling) {
+        EntryPoint entry = entryPoint;
+        if (entry == null || k <= 0) {
+            return List.of();
+        }
+
+        float[] normalized = VectorMath.normalize(query);
+        Point probe = quantizer == null ? new Point(normalized, null) : encode(normalized);
+        int current = entry.node();
+        for (int level = entry.level(); level > 0; level--) {
+            current = greedyClosest(probe, current, level);
+        }
+
+        int candidates = quantizer == null ? k : (int) Math.ceil(k * Math.max(1, oversampling));
+        ScoredHeap results = searchLayer(probe, current, Math.max(ef, candidates), 0);
+        int[] resultIds = new int[results.size()];
+        float[] resultScores = new float[results.size()];
+        drainDescending(results, resultIds, resultScores);
+
+        Node[] snapshot = nodes;
+        if (quantizer == null) {
+            var matches = new ArrayList<VectorMatch>(Math.min(k, resultIds.length));
+            for (int i = 0; i < resultIds.length && matches.size() < k; i++) {
+                Node node = snapshot[resultIds[i]];
+                if (!node.deleted) {
+                    matches.add(new VectorMatch(node.id, resultScores[i], node.payload, node.point.vector()));
+                }
+            }
+            return matches;
+        }
+        return rescore(normalized, snapshot, resultIds, k, candidates);
+    }
+
+    /**
+     * Compares the query with every node instead of walking the graph, always with the full precision vectors. It
+     * gives the exact matches to measure the recall of {@link #search}, at a cost linear in the size of the index.
+     *
+     * @param query the query vector
+     * @param k     maximum amount of matches
+     * @return the matches sorted by descending similarity, their vectors are normalized
+     */
+    List<VectorMatch> searchExact(float[] query, int k) {
+        if (k <= 0) {
+            return List.of();
+        }
+        var probe = new Point(VectorMath.normalize(query), null);
+        // the size is read before the nodes array so every counted node is within the snapshot
+        int count = size;
+        Node[] snapshot = nodes;
+        var best = new ScoredHeap(k + 1, false);
+        for (int nodeId = 0; nodeId < count; nodeId++) {
+            if (!snapshot[nodeId].deleted) {
+                best.push(nodeId, similarity(probe, snapshot, nodeId));
+                if (best.size() > k) {
+                    best.pop();
+                }
+            }
+        }
+
+        int[] resultIds = new int[best.size()];
+        float[] resultScores = new float[best.size()];
+        drainDescending(best, resultIds, resultScores);
+        var matches = new ArrayList<VectorMatch>(resultIds.length);
+        for (int i = 0; i < resultIds.length; i++) {
+            Node node = snapshot[resultIds[i]];
+            matches.add(new VectorMatch(node.id, resultScores[i], node.payload, vectorOf(snapshot, resultIds[i])));
+        }
+        return matches;
+    }
+
+    /**
+     * Reads the record with the given id.
+     *
+     * @param id         the id to read
+     * @param withVector whether the normalized vector is read
+     * @return the record, null if there is no record with that id
+     */
+    VectorRecord get(String id, boolean withVector) {
+        Integer nodeId = ids.get(id);
+        if (nodeId == null) {
+            return null;
+        }
+        Node[] snapshot = nodes;
+        return toRecord(snapshot, nodeId, withVector);
+    }
+
+    /**
+     * Iterates over the records that are not deleted. Records inserted during the iteration may be missed.
+     *
+     * @param withVector whether the normalized vectors are read
+     * @return the records, in insertion order
+     */
+    Iterable<VectorRecord> records(boolean withVector) {
+        return () -> new Iterator<>() {
+            // the size is read before the nodes array so every counted node is within the snapshot
+            private final int count = size;
+            private final Node[] snapshot = nodes;
+            private int next = advance(0);
+
+            @Override
+            public boolean hasNext() {
+                return next < count;
+            }
+
+            @Override
+            public VectorRecord next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                VectorRecord record = toRecord(snapshot, next, withVector);
+                next = advance(next + 1);
+                return record;
+            }
+
+            private int advance(int from) {
+                int position = from;
+                while (position < count && snapshot[position].deleted) {
+                    position++;
+                }
+                return position;
+            }
+        };
+    }
+
+    private VectorRecord toRecord(Node[] snapshot, int nodeId, boolean withVector) {
+        Node node = snapshot[nodeId];
+        float[] vector = withVector ? vectorOf(snapshot, nodeId).clone() : null;
+        return new VectorRecord(node.id, vector, node.payload);
+    }
+
+    /**
+     * Reorders the best quantized candidates by their full precision similarity.
+     */
+    private List<VectorMatch> rescore(float[] query, Node[] snapshot, int[] resultIds, int k, int candidates) {
+        var best = new ScoredHeap(k + 1, false);
+        var vectors = new float[resultIds.length][];
+        int rescored = 0;
+        for (int i = 0; i < resultIds.length && rescored < candidates; i++) {
+            if (!snapshot[resultIds[i]].deleted) {
+                vectors[i] = originals.get(resultIds[i]);
+                best.push(i, VectorMath.dot(query, vectors[i]));
+                if (best.size() > k) {
+                    best.pop();
+                }
+                rescored++;
+            }
+        }
+
+        int[] positions = new int[best.size()];
+        float[] scores = new float[best.size()];
+        drainDescending(best, positions, scores);
+        var matches = new ArrayList<VectorMatch>(positions.length);
+        for (int i = 0; i < positions.length; i++) {
+            Node node = snapshot[resultIds[positions[i]]];
+            matches.add(new VectorMatch(node.id, scores[i], node.payload, vectors[positions[i]]));
+        }
+        return matches;
+    }
+
+    /**
+     * Releases the off-heap vectors. The index must not be used afterwards.
+     *
+     * @throws IOException if the scratch file cannot be closed
+     */
+    void close() throws IOException {
+        if (originals != null) {
+            originals.close();
+        }
+    }
+
+    /**
+     * Writes the index to a memory-mapped file. Inserts wait until the snapshot is written, searches do not.
+     *
+     * @param path the destination file, it is replaced atomically
+     * @throws IOException if the file cannot be written
+     */
+    void save(Path path) throws IOException {
+        synchronized (writeLock) {
+            int count = size;
+            Node[] snapshot = nodes;
+            EntryPoint entry = entryPoint;
+
+            int[] recordSizes = new int[count];
+            long total = HEADER_SIZE;
+            for (int i = 0; i < count; i++) {
+                recordSizes[i] = recordSize(snapshot[i], dimension);
+                total += recordSizes[i];
+            }
+
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+                header.putInt(MAGIC).putInt(VERSION).putInt(dimension).putInt(m).putInt(count)
+                        .putInt(entry == null ? -1 : entry.node()).putInt(entry == null ? -1 : entry.level());
+                header.force();
+
+                long position = HEADER_SIZE;
+                long windowStart = position;
+                MappedByteBuffer window = null;
+                for (int i = 0; i < count; i++) {
+                    if (window == null || position + recordSizes[i] > windowStart + window.capacity()) {
+                        windowStart = position;
+                        window = channel.map(FileChannel.MapMode.READ_WRITE, windowStart,
+                                Math.max(recordSizes[i], Math.min(WINDOW_SIZE, total - windowStart)));
+                    }
+                    window.position((int) (position - windowStart));
+                    writeNode(window, snapshot[i], vectorOf(snapshot, i), recordSizes[i]);
+                    position += recordSizes[i];
+                    if (position - windowStart == window.capacity()) {
+                        window.force();
+                    }
+                }
+                if (window != null) {
+                    window.force();
+                }
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * Reads an index written by {@link #save(Path)}.
+     *
+     * @param path           the index file
+     * @param efConstruction size of the candidate list for the next inserts
+     * @param quantization   the quantization applied to the loaded vectors
+     * @return the loaded index
+     * @throws IOException if the file cannot be read or it is not an index file
+     */
+    static HnswIndex load(Path path, int efConstruction, QuantizationType quantization) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long total = channel.size();
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("The file " + path + " is not an HNSW index");
+            }
+
+            var index = new HnswIndex(header.getInt(), header.getInt(), efConstruction, quantization);
+            int count = header.getInt();
+            int entryNode = header.getInt();
+            int entryLevel = header.getInt();
+
+            var loaded = new Node[Math.max(count, 64)];
+            long position = HEADER_SIZE;
+            long windowStart = position;
+            MappedByteBuffer window = null;
+            for (int i = 0; i < count; i++) {
+                if (window == null || position + Integer.BYTES > windowStart + window.capacity()
+                        || position + window.getInt((int) (position - windowStart)) > windowStart + window.capacity()) {
+                    windowStart = position;
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart,
+                            Math.min(WINDOW_SIZE, total - windowStart));
+                }
+                window.position((int) (position - windowStart));
+                int recordSize = window.getInt();
+                loaded[i] = index.readNode(window, i);
+                position += recordSize;
+            }
+
+            for (int i = 0; i < count; i++) {
+                if (!loaded[i].deleted) {
+                    index.ids.put(loaded[i].id, i);
+                }
+            }
+            index.nodes = loaded;
+            index.size = count;
+            index.entryPoint = entryNode < 0 ? null : new EntryPoint(entryNode, entryLevel);
+            return index;
+        }
+    }
+
+    private void add(Node node, float[] vector) {
+        int nodeId = size;
+        ensureCapacity(nodeId + 1);
+        if (originals != null) {
+            originals.set(nodeId, vector);
+        }
+        Integer previous = ids.get(node.id);
+
+        EntryPoint entry = entryPoint;
+        if (entry == null) {
+            publish(node, nodeId);
+            entryPoint = new EntryPoint(nodeId, node.level());
+            return;
+        }
+
+        var exact = new Point(vector, null);
+        int current = entry.node();
+        for (int level = entry.level(); level > node.level(); level--) {
+            current = greedyClosest(exact, current, level);
+        }
+
+        for (int level = Math.min(node.level(), entry.level()); level >= 0; level--) {
+            ScoredHeap candidates = searchLayer(exact, current, efConstruction, level);
+            int[] candidateIds = new int[candidates.size()];
+            float[] candidateScores = new float[candidates.size()];
+            drainDescending(candidates, candidateIds, candidateScores);
+
+            node.neighbors.set(level, selectNeighbors(candidateIds, candidateScores, maxLinks(level)));
+            current = candidateIds[0];
+        }
+
+        publish(node, nodeId);
+        for (int level = Math.min(node.level(), entry.level()); level >= 0; level--) {
+            for (int neighbor : node.neighbors.get(level)) {
+                link(neighbor, nodeId, level);
+            }
+        }
+
+        if (previous != null) {
+            nodes[previous].deleted = true;
+        }
+        if (node.level() > entry.level()) {
+            entryPoint = new EntryPoint(nodeId, node.level());
+        }
+    }
+
+    /**
+     * Makes the node visible to the searches. Other nodes link to it only after this call.
+     */
+    private void publish(Node node, int nodeId) {
+        nodes[nodeId] = node;
+        size = nodeId + 1;
+        ids.put(node.id, nodeId);
+    }
+
+    private void link(int from, int to, int level) {
+        Node node = nodes[from];
+        int[] current = node.neighbors.get(level);
+        int maxLinks = maxLinks(level);
+
+        if (current.length < maxLinks) {
+            int[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = to;
+            node.neighbors.set(level, updated);
+            return;
+        }
+
+        var candidates = new ScoredHeap(current.length + 1, false);
+        var base = new Point(vectorOf(nodes, from), null);
+        candidates.push(to, similarity(base, nodes, to));
+        for (int neighbor : current) {
+            candidates.push(neighbor, similarity(base, nodes, neighbor));
+        }
+        int[] candidateIds = new int[candidates.size()];
+        float[] candidateScores = new float[candidates.size()];
+        drainDescending(candidates, candidateIds, candidateScores);
+        node.neighbors.set(level, selectNeighbors(candidateIds, candidateScores, maxLinks));
+    }
+
+    /**
+     * Neighbor selection heuristic: a candidate is kept when it is closer to the base node than to any neighbor
+     * already selected, which keeps links spread in different directions. Discarded candidates fill the
+     * remaining slots.
+     */
+    private int[] selectNeighbors(int[] candidateIds, float[] candidateScores, int maxLinks) {
+        int[] selected = new int[Math.min(maxLinks, candidateIds.length)];
+        boolean[] taken = new boolean[candidateIds.length];
+        int count = 0;
+
+        for (int i = 0; i < candidateIds.length && count < selected.length; i++) {
+            var candidate = new Point(vectorOf(nodes, candidateIds[i]), null);
+            boolean diverse = true;
+            for (int j = 0; j < count && diverse; j++) {
+                diverse = similarity(candidate, nodes, selected[j]) <= candidateScores[i];
+            }
+            if (diverse) {
+                selected[count++] = candidateIds[i];
+                taken[i] = true;
+            }
+        }
+        for (int i = 0; i < candidateIds.length && count < selected.length; i++) {
+            if (!taken[i]) {
+                selected[count++] = candidateIds[i];
+            }
+        }
+        return selected;
+    }
+
+    private int greedyClosest(Point query, int entry, int level) {
+        int current = entry;
+        float currentScore = similarity(query, nodes, current);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            int[] neighbors = nodes[current].neighbors.get(level);
+            Node[] snapshot = nodes;
+            for (int neighbor : neighbors) {
+                float score = similarity(query, snapshot, neighbor);
+                if (score > currentScore) {
+                    current = neighbor;
+                    currentScore = score;
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    private ScoredHeap searchLayer(Point query, int entry, int ef, int level) {
+        Visited visited = VISITED.get().reset(size);
+        var candidates = new ScoredHeap(ef, true);
+        var results = new ScoredHeap(ef + 1, false);
+
+        float entryScore = similarity(query, nodes, entry);
+        visited.mark(entry);
+        candidates.push(entry, entryScore);
+        results.push(entry, entryScore);
+
+        while (candidates.size() > 0) {
+            float candidateScore = candidates.peekScore();
+            if (results.size() >= ef && candidateScore < results.peekScore()) {
+                break;
+            }
+            int candidate = candidates.pop();
+
+            // the neighbors are read before the nodes array so every linked node is within the snapshot
+            int[] neighbors = nodes[candidate].neighbors.get(level);
+            Node[] snapshot = nodes;
+            for (int neighbor : neighbors) {
+                if (visited.mark(neighbor)) {
+                    float score = similarity(query, snapshot, neighbor);
+                    if (results.size() < ef || score > results.peekScore()) {
+                        candidates.push(neighbor, score);
+                        results.push(neighbor, score);
+                        if (results.size() > ef) {
+                            results.pop();
+                        }
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Keeps the full precision vector, or only its code when the index is quantized.
+     */
+    private Point encode(float[] normalized) {
+        return quantizer == null ? new Point(normalized, null) : new Point(null, quantizer.encode(normalized));
+    }
+
+    /**
+     * Compares the query with a node: over the codes when the query is encoded, over the full precision vectors
+     * otherwise.
+     */
+    private float similarity(Point query, Node[] snapshot, int nodeId) {
+        if (query.code() != null) {
+            return quantizer.score(query.code(), snapshot[nodeId].point.code());
+        }
+        return quantizer == null
+                ? VectorMath.dot(query.vector(), snapshot[nodeId].point.vector())
+                : originals.dot(nodeId, query.vector());
+    }
+
+    private float[] vectorOf(Node[] snapshot, int nodeId) {
+        return quantizer == null ? snapshot[nodeId].point.vector() : originals.get(nodeId);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > nodes.length) {
+            nodes = Arrays.copyOf(nodes, Math.max(capacity, nodes.length * 2));
+        }
+    }
+
+    private int maxLinks(int level) {
+        return level == 0 ? 2 * m : m;
+    }
+
+    private int randomLevel() {
+        double random = 1 - ThreadLocalRandom.current().nextDouble();
+        return (int) (-Math.log(random) * levelFactor);
+    }
+
+    private static void drainDescending(ScoredHeap minHeap, int[] ids, float[] scores) {
+        for (int i = ids.length - 1; i >= 0; i--) {
+            scores[i] = minHeap.peekScore();
+            ids[i] = minHeap.pop();
+        }
+    }
+
+    private static int recordSize(Node node, int dimension) {
+        int bytes = Integer.BYTES + 1 + Integer.BYTES + PayloadCodec.stringSize(node.id) + dimension * Float.BYTES;
+        for (int level = 0; level <= node.level(); level++) {
+            bytes += Integer.BYTES + node.neighbors.get(level).length * Integer.BYTES;
+        }
+        return bytes + PayloadCodec.size(node.payload);
+    }
+
+    private static void writeNode(ByteBuffer buffer, Node node, float[] vector, int recordSize) {
+        buffer.putInt(recordSize);
+        buffer.put((byte) (node.deleted ? 1 : 0));
+        buffer.putInt(node.level());
+        PayloadCodec.putString(buffer, node.id);
+        buffer.asFloatBuffer().put(vector);
+        buffer.position(buffer.position() + vector.length * Float.BYTES);
+        for (int level = 0; level <= node.level(); level++) {
+            int[] neighbors = node.neighbors.get(level);
+            buffer.putInt(neighbors.length);
+            buffer.asIntBuffer().put(neighbors);
+            buffer.position(buffer.position() + neighbors.length * Integer.BYTES);
+        }
+        PayloadCodec.write(buffer, node.payload);
+    }
+
+    private Node readNode(ByteBuffer buffer, int nodeId) {
+        boolean deleted = buffer.get() == 1;
+        int level = buffer.getInt();
+        String id = PayloadCodec.getString(buffer);
+        float[] vector = new float[dimension];
+        buffer.asFloatBuffer().get(vector);
+        buffer.position(buffer.position() + dimension * Float.BYTES);
+        if (originals != null) {
+            originals.set(nodeId, vector);
+        }
+
+        var neighbors = new AtomicReferenceArray<int[]>(level + 1);
+        for (int i = 0; i <= level; i++) {
+            int[] links = new int[buffer.getInt()];
+            buffer.asIntBuffer().get(links);
+            buffer.position(buffer.position() + links.length * Integer.BYTES);
+            neighbors.set(i, links);
+        }
+
+        var node = new Node(id, encode(vector), PayloadCodec.read(buffer), neighbors);
+        node.deleted = deleted;
+        return node;
+    }
+
+    private record EntryPoint(int node, int level) {
+    }
+
+    /**
+     * What the graph compares: the normalized vector, or its code. Nodes of a quantized index only keep the code,
+     * their vectors are in {@link OffHeapVectors}.
+     */
+    private record Point(float[] vector, byte[] code) {
+    }
+
+    private static final class Node {
+        final String id;
+        final Point point;
+        final Map<String, Object> payload;
+        final AtomicReferenceArray<int[]> neighbors;
+        volatile boolean deleted;
+
+        Node(String id, Point point, Map<String, Object> payload, int level) {
+            this(id, point, payload, new AtomicReferenceArray<>(level + 1));
+            for (int i = 0; i <= level; i++) {
+                neighbors.set(i, NO_NEIGHBORS);
+            }
+        }
+
+        Node(String id, Point point, Map<String, Object> payload, AtomicReferenceArray<int[]> neighbors) {
+            this.id = id;
+            this.point = point;
+            this.payload = payload;
+            this.neighbors = neighbors;
+        }
+
+        int level() {
+            return neighbors.length() - 1;
+        }
+    }
+
+    /**
+     * Binary heap of node ids ordered by score, without boxing.
+     */
+    private static final class ScoredHeap {
+        private final boolean max;
+        private int[] ids;
+        private float[] scores;
+        private int size;
+
+        ScoredHeap(int capacity, boolean max) {
+            this.max = max;
+            this.ids = new int[Math.max(capacity, 1)];
+            this.scores = new float[Math.max(capacity, 1)];
+        }
+
+        int size() {
+            return size;
+        }
+
+        float peekScore() {
+            return scores[0];
+        }
+
+        void push(int id, float score) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(score, scores[parent])) {
+                    break;
+                }
+                ids[i] = ids[parent];
+                scores[i] = scores[parent];
+                i = parent;
+            }
+            ids[i] = id;
+            scores[i] = score;
+        }
+
+        int pop() {
+            int top = ids[0];
+            int lastId = ids[--size];
+            float lastScore = scores[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && before(scores[child + 1], scores[child])) {
+                    child++;
+                }
+                if (!before(scores[child], lastScore)) {
+                    break;
+                }
+                ids[i] = ids[child];
+                scores[i] = scores[child];
+                i = child;
+            }
+            ids[i] = lastId;
+            scores[i] = lastScore;
+            return top;
+        }
+
+        private boolean before(float a, float b) {
+            return max ? a > b : a < b;
+        }
+    }
+
+    /**
+     * Visited marks reused between the searches of a thread, cleared by bumping a generation counter.
+     */
+    private static final class Visited {
+        private int[] marks = new int[64];
+        private int generation;
+
+        Visited reset(int capacity) {
+            if (capacity > marks.length) {
+                marks = new int[Math.max(capacity, marks.length * 2)];
+                generation = 0;
+            }
+            if (++generation == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                generation = 1;
+            }
+            return this;
+        }
+
+        boolean mark(int node) {
+            if (node >= marks.length) {
+                marks = Arrays.copyOf(marks, Math.max(node + 1, marks.length * 2));
+            }
+            if (marks[node] == generation) {
+                return false;
+            }
+            marks[node] = generation;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.epam.training.gen.ai.vector;
+
+import com.epam.training.gen.ai.configuration.ClientOpenAiProperties;
+import com.epam.training.gen.ai.configuration.DbProperties;
+import com.epam.training.gen.ai.configuration.EmbeddedIndexProperties;
+import com.epam.training.gen.ai.configuration.QuantizationProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link VectorStore} backed by an in-process {@link HnswIndex}.
+ * <p>
+ * It removes the network hop for collections that fit on a single node and does not need any external service,
+ * which makes it handy for tests and benchmarks. The index is loaded from {@code application.db.embedded.path}
+ * on startup and written back on shutdown. The {@code application.db.quantization} settings apply to it as well,
+ * while the {@code application.db.profile} ones are specific to Qdrant.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "application.db.backend", havingValue = "embedded")
+public class HnswVectorStore implements VectorStore {
+    private final DbProperties dbProperties;
+    private final EmbeddedIndexProperties indexProperties;
+    private final QuantizationProperties quantization;
+    private final Path path;
+
+    private volatile HnswIndex index;
+
+    public HnswVectorStore(ClientOpenAiProperties clientOpenAiProperties) throws IOException {
+        this.dbProperties = clientOpenAiProperties.application().db();
+        this.indexProperties = dbProperties.embedded();
+        this.quantization = dbProperties.quantization();
+        this.path = StringUtils.isBlank(indexProperties.path()) ? null : Path.of(indexProperties.path());
+
+        if (path != null && Files.exists(path)) {
+            this.index = HnswIndex.load(path, indexProperties.efConstruction(), quantization.type());
+            log.info("Embedded index loaded from {} with {} vectors", path, index.size());
+        }
+    }
+
+    @Override
+    public Mono<Void> createCollection() {
+        return Mono.fromRunnable(() -> {
+            synchronized (this) {
+                if (index != null) {
+                    throw new IllegalStateException("Collection [" + dbProperties.collection() + "] already exists");
+                }
+                index = new HnswIndex(dbProperties.vectorSize(), indexProperties.m(),
+                        indexProperties.efConstruction(), quantization.type());
+                log.info("Collection was created: [{}]", dbProperties.collection());
+            }
+        });
+    }
+
+    /**
+     * The graph settings are read from {@code application.db.embedded} when the index is loaded and the search
+     * settings on every search, so there is nothing to apply to a live index.
+     */
+    @Override
+    public Mono<Void> reconcileCollection() {
+        return Mono.fromRunnable(() -> log.info("Collection [{}] has {} vectors, the embedded index settings apply "
+                + "on every search and restart", dbProperties.collection(), requireIndex().size()));
+    }
+
+    @Override
+    public Mono<Void> upsert(List<VectorRecord> records) {
+        return Mono.<Void>fromRunnable(() -> {
+                    HnswIndex current = requireIndex();
+                    records.forEach(record -> current.insert(record.id(), record.vector(), record.payload()));
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Mono<List<VectorMatch>> search(VectorQuery query) {
+        return Mono.fromCallable(() -> find(requireIndex(), query)
+                .stream()
+                .skip(query.offset())
+                .filter(match -> query.scoreThreshold() == null || match.score() >= query.scoreThreshold())
+                .map(match -> new VectorMatch(match.id(), match.score(), query.project(match.payload()),
+                        query.withVector() ? match.vector().clone() : null))
+                .toList());
+    }
+
+    @Override
+    public Mono<List<VectorRecord>> retrieve(List<String> ids, boolean withVector) {
+        return Mono.fromCallable(() -> {
+            HnswIndex current = requireIndex();
+            var records = new ArrayList<VectorRecord>(ids.size());
+            ids.forEach(id -> {
+                VectorRecord record = current.get(id, withVector);
+                if (record != null) {
+                    records.add(record);
+                }
+            });
+            return records;
+        });
+    }
+
+    @Override
+    public Flux<VectorRecord> scroll(int pageSize, boolean withVector) {
+        return Flux.defer(() -> Flux.fromIterable(requireIndex().records(withVector)));
+    }
+
+    /**
+     * Writes the index to disk so it survives restarts, then releases it.
+     *
+     * @throws IOException if the index file cannot be written
+     */
+    @PreDestroy
+    public void persist() throws IOException {
+        HnswIndex current = index;
+        if (current == null) {
+            return;
+        }
+        try {
+            if (path != null) {
+                current.save(path);
+                log.info("Embedded index saved to {} with {} vectors", path, current.size());
+            }
+        } finally {
+            current.close();
+        }
+    }
+
+    /**
+     * Finds the matches of the query up to the last one of the requested page.
+     */
+    private List<VectorMatch> find(HnswIndex current, VectorQuery query) {
+        int k = query.offset() + query.limit();
+        if (query.exact()) {
+            return current.searchExact(query.vector(), k);
+        }
+        int ef = query.hnswEf() == null ? indexProperties.efSearch() : query.hnswEf();
+        return current.search(query.vector(), k, ef, quantization.oversampling());
+    }
+
+    private HnswIndex requireIndex() {
+        HnswIndex current = index;
+        if (current == null) {
+            throw new IllegalStateException("Collection [" + dbProperties.collection() + "] does not exist");
+        }
+        return current;
+    }
+}
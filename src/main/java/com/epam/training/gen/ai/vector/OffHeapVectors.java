@@ -0,0 +1,80 @@
+package com.epam.training.gen.ai.vector;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Full precision vectors stored outside the heap, in a memory-mapped scratch file that is deleted on close.
+ * <p>
+ * The operating system pages the vectors in and out as needed, so only the ones read for rescoring take memory.
+ * Writes must be serialized by the caller; reads do not lock and see every vector written before the node that
+ * owns it was published.
+ */
+final class OffHeapVectors {
+    private static final long SEGMENT_SIZE = 64L << 20;
+
+    private final int dimension;
+    private final int vectorsPerSegment;
+    private final FileChannel channel;
+
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+    OffHeapVectors(int dimension) {
+        this.dimension = dimension;
+        this.vectorsPerSegment = (int) Math.max(1, SEGMENT_SIZE / ((long) dimension * Float.BYTES));
+        try {
+            Path file = Files.createTempFile("hnsw-vectors", ".bin");
+            this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void set(int node, float[] vector) {
+        int segment = node / vectorsPerSegment;
+        if (segment >= segments.length) {
+            grow(segment + 1);
+        }
+        segments[segment].asFloatBuffer().put((node % vectorsPerSegment) * dimension, vector);
+    }
+
+    float[] get(int node) {
+        var vector = new float[dimension];
+        segments[node / vectorsPerSegment].asFloatBuffer().get((node % vectorsPerSegment) * dimension, vector);
+        return vector;
+    }
+
+    float dot(int node, float[] query) {
+        var buffer = segments[node / vectorsPerSegment].asFloatBuffer();
+        int offset = (node % vectorsPerSegment) * dimension;
+        float sum = 0;
+        for (int i = 0; i < dimension; i++) {
+            sum += query[i] * buffer.get(offset + i);
+        }
+        return sum;
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    private void grow(int count) {
+        MappedByteBuffer[] grown = Arrays.copyOf(segments, count);
+        long segmentBytes = (long) vectorsPerSegment * dimension * Float.BYTES;
+        try {
+            for (int i = segments.length; i < count; i++) {
+                grown[i] = channel.map(FileChannel.MapMode.READ_WRITE, i * segmentBytes, segmentBytes);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        segments = grown;
+    }
+}
@@ -0,0 +1,107 @@
+package com.epam.training.gen.ai.vector;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Binary encoding of the payloads and the strings of the files written by the vector stores.
+ * <p>
+ * A payload is its amount of fields followed by every field: the length-prefixed UTF-8 key, a type tag and the
+ * value. Integers are widened to {@code long}, other numbers to {@code double}, and any other value is stored as
+ * its string.
+ */
+final class PayloadCodec {
+    private static final byte STRING = 1;
+    private static final byte LONG = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte BOOLEAN = 4;
+
+    private PayloadCodec() {
+    }
+
+    /**
+     * Computes the encoded size of a payload.
+     *
+     * @param payload the payload fields
+     * @return the size in bytes
+     */
+    static int size(Map<String, Object> payload) {
+        int bytes = Integer.BYTES;
+        for (var field : payload.entrySet()) {
+            bytes += stringSize(field.getKey()) + 1;
+            bytes += switch (typeOf(field.getValue())) {
+                case LONG, DOUBLE -> Long.BYTES;
+                case BOOLEAN -> 1;
+                default -> stringSize(String.valueOf(field.getValue()));
+            };
+        }
+        return bytes;
+    }
+
+    static void write(ByteBuffer buffer, Map<String, Object> payload) {
+        buffer.putInt(payload.size());
+        for (var field : payload.entrySet()) {
+            putString(buffer, field.getKey());
+            byte type = typeOf(field.getValue());
+            buffer.put(type);
+            switch (type) {
+                case LONG -> buffer.putLong(((Number) field.getValue()).longValue());
+                case DOUBLE -> buffer.putDouble(((Number) field.getValue()).doubleValue());
+                case BOOLEAN -> buffer.put((byte) ((Boolean) field.getValue() ? 1 : 0));
+                default -> putString(buffer, String.valueOf(field.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Reads a payload.
+     *
+     * @param buffer the buffer positioned at the payload
+     * @return the unmodifiable payload
+     */
+    static Map<String, Object> read(ByteBuffer buffer) {
+        int fields = buffer.getInt();
+        var payload = new HashMap<String, Object>(fields);
+        for (int i = 0; i < fields; i++) {
+            String key = getString(buffer);
+            Object value = switch (buffer.get()) {
+                case LONG -> buffer.getLong();
+                case DOUBLE -> buffer.getDouble();
+                case BOOLEAN -> buffer.get() == 1;
+                default -> getString(buffer);
+            };
+            payload.put(key, value);
+        }
+        return Collections.unmodifiableMap(payload);
+    }
+
+    static int stringSize(String value) {
+        return Integer.BYTES + value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte typeOf(Object value) {
+        if (value instanceof Integer || value instanceof Long) {
+            return LONG;
+        } else if (value instanceof Number) {
+            return DOUBLE;
+        } else if (value instanceof Boolean) {
+            return BOOLEAN;
+        }
+        return STRING;
+    }
+}
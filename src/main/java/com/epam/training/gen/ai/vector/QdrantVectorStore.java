@@ -0,0 +1,376 @@
+package com.epam.training.gen.ai.vector;
+
+import com.epam.training.gen.ai.configuration.ClientOpenAiProperties;
+import com.epam.training.gen.ai.configuration.CollectionProfileProperties;
+import com.epam.training.gen.ai.configuration.DbProperties;
+import com.epam.training.gen.ai.configuration.PayloadIndexProperties;
+import com.epam.training.gen.ai.configuration.QuantizationProperties;
+import com.epam.training.gen.ai.util.FutureUtils;
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.WithVectorsSelectorFactory;
+import io.qdrant.client.grpc.Collections;
+import io.qdrant.client.grpc.Collections.BinaryQuantization;
+import io.qdrant.client.grpc.Collections.CollectionParamsDiff;
+import io.qdrant.client.grpc.Collections.CreateCollection;
+import io.qdrant.client.grpc.Collections.HnswConfigDiff;
+import io.qdrant.client.grpc.Collections.OptimizersConfigDiff;
+import io.qdrant.client.grpc.Collections.PayloadSchemaType;
+import io.qdrant.client.grpc.Collections.QuantizationConfig;
+import io.qdrant.client.grpc.Collections.ScalarQuantization;
+import io.qdrant.client.grpc.Collections.UpdateCollection;
+import io.qdrant.client.grpc.Collections.VectorParams;
+import io.qdrant.client.grpc.Collections.VectorParamsDiff;
+import io.qdrant.client.grpc.Collections.VectorsConfig;
+import io.qdrant.client.grpc.Collections.VectorsConfigDiff;
+import io.qdrant.client.grpc.JsonWithInt.Value;
+import io.qdrant.client.grpc.Points.PointId;
+import io.qdrant.client.grpc.Points.PointStruct;
+import io.qdrant.client.grpc.Points.QuantizationSearchParams;
+import io.qdrant.client.grpc.Points.Vector;
+import io.qdrant.client.grpc.Points.Vectors;
+import io.qdrant.client.grpc.Points.RetrievedPoint;
+import io.qdrant.client.grpc.Points.ScoredPoint;
+import io.qdrant.client.grpc.Points.ScrollPoints;
+import io.qdrant.client.grpc.Points.ScrollResponse;
+import io.qdrant.client.grpc.Points.SearchParams;
+import io.qdrant.client.grpc.Points.SearchPoints;
+import io.qdrant.client.grpc.Points.UpsertPoints;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static io.qdrant.client.PointIdFactory.id;
+import static io.qdrant.client.ValueFactory.value;
+import static io.qdrant.client.WithPayloadSelectorFactory.enable;
+import static io.qdrant.client.WithPayloadSelectorFactory.include;
+
+/**
+ * {@link VectorStore} backed by a Qdrant collection.
+ * <p>
+ * When quantization is enabled the original vectors are stored on disk and Qdrant searches over the quantized ones,
+ * rescoring the oversampled candidates with the originals. The HNSW graph, storage, sharding and payload indexes
+ * follow the {@code application.db.profile} settings.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "application.db.backend", havingValue = "qdrant", matchIfMissing = true)
+public class QdrantVectorStore implements VectorStore {
+    private final QdrantClient qdrantClient;
+    private final DbProperties dbProperties;
+
+    public QdrantVectorStore(QdrantClient qdrantClient, ClientOpenAiProperties clientOpenAiProperties) {
+        this.qdrantClient = qdrantClient;
+        this.dbProperties = clientOpenAiProperties.application().db();
+    }
+
+    @Override
+    public Mono<Void> createCollection() {
+        QuantizationProperties quantization = dbProperties.quantization();
+        CollectionProfileProperties profile = dbProperties.profile();
+        var vectorParams = VectorParams.newBuilder()
+                .setDistance(Collections.Distance.Cosine)
+                .setSize(dbProperties.vectorSize())
+                .setOnDisk(isOnDiskVectors());
+        var createCollection = CreateCollection.newBuilder()
+                .setCollectionName(dbProperties.collection())
+                .setHnswConfig(getHnswConfig(profile))
+                .setOptimizersConfig(getOptimizersConfig(profile))
+                .setOnDiskPayload(profile.onDiskPayload());
+        if (quantization.enabled()) {
+            createCollection.setQuantizationConfig(getQuantizationConfig(quantization));
+        }
+        if (profile.shardNumber() > 0) {
+            createCollection.setShardNumber(profile.shardNumber());
+        }
+        if (profile.replicationFactor() > 0) {
+            createCollection.setReplicationFactor(profile.replicationFactor());
+        }
+        createCollection.setVectorsConfig(VectorsConfig.newBuilder().setParams(vectorParams));
+
+        return FutureUtils.toMono(qdrantClient.createCollectionAsync(createCollection.build()))
+                .doOnNext(result -> log.info("Collection was created: [{}]", result.getResult()))
+                .then(createPayloadIndexes(Set.of()));
+    }
+
+    /**
+     * Updates the HNSW, optimizer and storage settings of the collection and creates the missing payload indexes.
+     * Qdrant rebuilds the affected segments in the background, the collection stays available meanwhile. The shard
+     * number and the replication factor are left untouched.
+     */
+    @Override
+    public Mono<Void> reconcileCollection() {
+        CollectionProfileProperties profile = dbProperties.profile();
+        var updateCollection = UpdateCollection.newBuilder()
+                .setCollectionName(dbProperties.collection())
+                .setHnswConfig(getHnswConfig(profile))
+                .setOptimizersConfig(getOptimizersConfig(profile))
+                .setParams(CollectionParamsDiff.newBuilder().setOnDiskPayload(profile.onDiskPayload()))
+                .setVectorsConfig(VectorsConfigDiff.newBuilder()
+                        .setParams(VectorParamsDiff.newBuilder().setOnDisk(isOnDiskVectors())));
+
+        return FutureUtils.toMono(qdrantClient.updateCollectionAsync(updateCollection.build()))
+                .doOnNext(result -> log.info("Collection was updated: [{}]", result.getResult()))
+                .then(Mono.defer(() -> FutureUtils.toMono(
+                        qdrantClient.getCollectionInfoAsync(dbProperties.collection()))))
+                .flatMap(info -> createPayloadIndexes(info.getPayloadSchemaMap().keySet()));
+    }
+
+    @Override
+    public Mono<Void> upsert(List<VectorRecord> records) {
+        var pointStructs = new ArrayList<PointStruct>(records.size());
+        records.forEach(record -> pointStructs.add(getPointStruct(record)));
+
+        var upsertPoints = UpsertPoints.newBuilder()
+                .setCollectionName(dbProperties.collection())
+                .addAllPoints(pointStructs)
+                .setWait(dbProperties.writeBehind().waitForApply())
+                .build();
+
+        return FutureUtils.toMono(qdrantClient.upsertAsync(upsertPoints))
+                .doOnNext(updateResult -> log.debug(updateResult.getStatus().name()))
+                .then();
+    }
+
+    @Override
+    public Mono<List<VectorMatch>> search(VectorQuery query) {
+        return FutureUtils.toMono(qdrantClient.searchAsync(getSearchPoints(query)))
+                .map(scoredPoints -> scoredPoints.stream().map(QdrantVectorStore::toMatch).toList());
+    }
+
+    @Override
+    public Mono<List<List<VectorMatch>>> searchBatch(List<VectorQuery> queries) {
+        var searches = new ArrayList<SearchPoints>(queries.size());
+        queries.forEach(query -> searches.add(getSearchPoints(query)));
+
+        return FutureUtils.toMono(qdrantClient.searchBatchAsync(dbProperties.collection(), searches, null))
+                .map(batchResults -> batchResults.stream()
+                        .map(batchResult -> batchResult.getResultList().stream()
+                                .map(QdrantVectorStore::toMatch)
+                                .toList())
+                        .toList());
+    }
+
+    @Override
+    public Mono<List<VectorRecord>> retrieve(List<String> ids, boolean withVector) {
+        if (ids.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        var pointIds = new ArrayList<PointId>(ids.size());
+        ids.forEach(recordId -> pointIds.add(id(UUID.fromString(recordId))));
+
+        return FutureUtils.toMono(qdrantClient.retrieveAsync(dbProperties.collection(), pointIds, true, withVector,
+                        null))
+                .map(points -> points.stream().map(QdrantVectorStore::toRecord).toList());
+    }
+
+    @Override
+    public Flux<VectorRecord> scroll(int pageSize, boolean withVector) {
+        return scrollPage(null, pageSize, withVector)
+                .expand(response -> response.hasNextPageOffset()
+                        ? scrollPage(response.getNextPageOffset(), pageSize, withVector)
+                        : Mono.empty())
+                .concatMapIterable(ScrollResponse::getResultList)
+                .map(QdrantVectorStore::toRecord);
+    }
+
+    private Mono<ScrollResponse> scrollPage(PointId offset, int pageSize, boolean withVector) {
+        var scrollPoints = ScrollPoints.newBuilder()
+                .setCollectionName(dbProperties.collection())
+                .setLimit(pageSize)
+                .setWithPayload(enable(true))
+                .setWithVectors(WithVectorsSelectorFactory.enable(withVector));
+        if (offset != null) {
+            scrollPoints.setOffset(offset);
+        }
+        return FutureUtils.toMono(qdrantClient.scrollAsync(scrollPoints.build()));
+    }
+
+    private Mono<Void> createPayloadIndexes(Set<String> existing) {
+        return Flux.fromIterable(dbProperties.profile().payloadIndexes())
+                .filter(index -> !existing.contains(index.field()))
+                .concatMap(index -> FutureUtils.toMono(qdrantClient.createPayloadIndexAsync(dbProperties.collection(),
+                                index.field(), toSchemaType(index), null, true, null, null))
+                        .doOnNext(result -> log.info("Payload index was created on [{}]", index.field())))
+                .then();
+    }
+
+    private SearchPoints getSearchPoints(VectorQuery query) {
+        var searchPoints = SearchPoints.newBuilder()
+                .setCollectionName(dbProperties.collection())
+                .setWithPayload(query.withPayload() && query.payloadFields() != null
+                        ? include(query.payloadFields())
+                        : enable(query.withPayload()))
+                .setWithVectors(WithVectorsSelectorFactory.enable(query.withVector()))
+                .setLimit(query.limit())
+                .setOffset(query.offset());
+        var searchParams = SearchParams.newBuilder()
+                .setExact(query.exact());
+        int hnswEf = query.hnswEf() == null ? dbProperties.profile().hnswEf() : query.hnswEf();
+        if (hnswEf > 0) {
+            searchParams.setHnswEf(hnswEf);
+        }
+        QuantizationProperties quantization = dbProperties.quantization();
+        if (quantization.enabled()) {
+            searchParams.setQuantization(QuantizationSearchParams.newBuilder()
+                    .setRescore(true)
+                    .setOversampling(quantization.oversampling()));
+        }
+        searchPoints.setParams(searchParams);
+        if (query.scoreThreshold() != null) {
+            searchPoints.setScoreThreshold(query.scoreThreshold());
+        }
+        for (float value : query.vector()) {
+            searchPoints.addVector(value);
+        }
+        return searchPoints.build();
+    }
+
+    /**
+     * The original vectors always go to disk with quantization, the quantized ones are enough to search.
+     */
+    private boolean isOnDiskVectors() {
+        return dbProperties.profile().onDiskVectors() || dbProperties.quantization().enabled();
+    }
+
+    private static HnswConfigDiff getHnswConfig(CollectionProfileProperties profile) {
+        var hnswConfig = HnswConfigDiff.newBuilder()
+                .setOnDisk(profile.onDiskIndex());
+        if (profile.hnswM() > 0) {
+            hnswConfig.setM(profile.hnswM());
+        }
+        if (profile.hnswEfConstruct() > 0) {
+            hnswConfig.setEfConstruct(profile.hnswEfConstruct());
+        }
+        if (profile.fullScanThreshold() > 0) {
+            hnswConfig.setFullScanThreshold(profile.fullScanThreshold());
+        }
+        return hnswConfig.build();
+    }
+
+    private static OptimizersConfigDiff getOptimizersConfig(CollectionProfileProperties profile) {
+        var optimizersConfig = OptimizersConfigDiff.newBuilder();
+        if (profile.indexingThreshold() > 0) {
+            optimizersConfig.setIndexingThreshold(profile.indexingThreshold());
+        }
+        if (profile.memmapThreshold() > 0) {
+            optimizersConfig.setMemmapThreshold(profile.memmapThreshold());
+        }
+        return optimizersConfig.build();
+    }
+
+    private static PayloadSchemaType toSchemaType(PayloadIndexProperties index) {
+        return switch (index.type()) {
+            case KEYWORD -> PayloadSchemaType.Keyword;
+            case INTEGER -> PayloadSchemaType.Integer;
+            case FLOAT -> PayloadSchemaType.Float;
+            case BOOL -> PayloadSchemaType.Bool;
+            case TEXT -> PayloadSchemaType.Text;
+            case DATETIME -> PayloadSchemaType.Datetime;
+            case UUID -> PayloadSchemaType.Uuid;
+        };
+    }
+
+    private static QuantizationConfig getQuantizationConfig(QuantizationProperties quantization) {
+        return switch (quantization.type()) {
+            case SCALAR -> QuantizationConfig.newBuilder()
+                    .setScalar(ScalarQuantization.newBuilder()
+                            .setType(Collections.QuantizationType.Int8)
+                            .setQuantile(0.99f)
+                            .setAlwaysRam(quantization.alwaysRam()))
+                    .build();
+            case BINARY -> QuantizationConfig.newBuilder()
+                    .setBinary(BinaryQuantization.newBuilder().setAlwaysRam(quantization.alwaysRam()))
+                    .build();
+            case NONE -> throw new IllegalArgumentException("Quantization is disabled");
+        };
+    }
+
+    /**
+     * Constructs a point structure from a {@link VectorRecord}.
+     *
+     * @param record the record to convert
+     * @return a {@link PointStruct} object containing the vector and associated metadata
+     */
+    private static PointStruct getPointStruct(VectorRecord record) {
+        return PointStruct.newBuilder()
+                .setId(id(UUID.fromString(record.id())))
+                .setVectors(toVectors(record.vector()))
+                .putAllPayload(toPayload(record.payload()))
+                .build();
+    }
+
+    private static Map<String, Value> toPayload(Map<String, Object> payload) {
+        var converted = new HashMap<String, Value>(payload.size());
+        payload.forEach((key, fieldValue) -> converted.put(key, toValue(fieldValue)));
+        return converted;
+    }
+
+    private static VectorMatch toMatch(ScoredPoint scoredPoint) {
+        float[] vector = scoredPoint.hasVectors() ? toArray(scoredPoint.getVectors().getVector()) : null;
+        return new VectorMatch(scoredPoint.getId().getUuid(), scoredPoint.getScore(),
+                fromPayload(scoredPoint.getPayloadMap()), vector);
+    }
+
+    private static VectorRecord toRecord(RetrievedPoint point) {
+        float[] vector = point.hasVectors() ? toArray(point.getVectors().getVector()) : null;
+        return new VectorRecord(point.getId().getUuid(), vector, fromPayload(point.getPayloadMap()));
+    }
+
+    private static Map<String, Object> fromPayload(Map<String, Value> payload) {
+        var converted = new HashMap<String, Object>(payload.size());
+        payload.forEach((key, fieldValue) -> converted.put(key, fromValue(fieldValue)));
+        return converted;
+    }
+
+    /**
+     * Copies the vector values into the protobuf message one by one. The Qdrant factories go through
+     * {@code Floats.asList}, which boxes every component.
+     */
+    private static Vectors toVectors(float[] vector) {
+        var builder = Vector.newBuilder();
+        for (float value : vector) {
+            builder.addData(value);
+        }
+        return Vectors.newBuilder().setVector(builder).build();
+    }
+
+    private static float[] toArray(Vector vector) {
+        var values = new float[vector.getDataCount()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = vector.getData(i);
+        }
+        return values;
+    }
+
+    private static Value toValue(Object fieldValue) {
+        if (fieldValue instanceof String string) {
+            return value(string);
+        } else if (fieldValue instanceof Integer || fieldValue instanceof Long) {
+            return value(((Number) fieldValue).longValue());
+        } else if (fieldValue instanceof Number number) {
+            return value(number.doubleValue());
+        } else if (fieldValue instanceof Boolean bool) {
+            return value(bool);
+        }
+        return value(String.valueOf(fieldValue));
+    }
+
+    private static Object fromValue(Value fieldValue) {
+        return switch (fieldValue.getKindCase()) {
+            case STRING_VALUE -> fieldValue.getStringValue();
+            case INTEGER_VALUE -> fieldValue.getIntegerValue();
+            case DOUBLE_VALUE -> fieldValue.getDoubleValue();
+            case BOOL_VALUE -> fieldValue.getBoolValue();
+            default -> fieldValue.toString();
+        };
+    }
+}
@@ -0,0 +1,233 @@
+package com.epam.training.gen.ai.vector;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Portable binary snapshot of the records of a collection, independent of the vector store it comes from.
+ * <p>
+ * The file starts with a header holding a magic number, the format version, the vector size and the amount of
+ * records. Every record follows as its size, the length-prefixed id, the {@code float32} vector and the payload
+ * encoded by {@link PayloadCodec}. The file is written through a small direct buffer and read through memory-mapped
+ * windows, so the memory in use does not depend on the size of the snapshot.
+ */
+public final class SnapshotFile {
+    private static final int MAGIC = 0x56534E50;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 3 * Integer.BYTES + Long.BYTES;
+    private static final long WINDOW_SIZE = 64L << 20;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Starts writing a snapshot. The records go to a temporary file that replaces the target on commit.
+     *
+     * @param path      the snapshot file
+     * @param dimension the vector size of the records
+     * @return the writer, it must be either committed or aborted
+     * @throws IOException if the file cannot be created
+     */
+    public static Writer create(Path path, int dimension) throws IOException {
+        return new Writer(path, dimension);
+    }
+
+    /**
+     * Opens a snapshot to read its records.
+     *
+     * @param path the snapshot file
+     * @return the reader, it must be closed
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    public static Reader open(Path path) throws IOException {
+        return new Reader(path);
+    }
+
+    /**
+     * Appends records to a snapshot file.
+     */
+    public static final class Writer {
+        private final Path path;
+        private final Path temporary;
+        private final int dimension;
+        private final FileChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private long count;
+
+        private Writer(Path path, int dimension) throws IOException {
+            this.path = path;
+            this.dimension = dimension;
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            this.temporary = path.resolveSibling(path.getFileName() + ".tmp");
+            this.channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.channel.position(HEADER_SIZE);
+        }
+
+        /**
+         * Appends a record.
+         *
+         * @param record the record to write, with its vector
+         */
+        public void write(VectorRecord record) {
+            float[] vector = record.vector();
+            if (vector == null || vector.length != dimension) {
+                throw new IllegalArgumentException("Record " + record.id() + " does not have a vector of "
+                        + dimension + " dimensions");
+            }
+            int recordSize = Integer.BYTES + PayloadCodec.stringSize(record.id()) + dimension * Float.BYTES
+                    + PayloadCodec.size(record.payload());
+            try {
+                if (buffer.remaining() < recordSize) {
+                    flush();
+                    if (buffer.capacity() < recordSize) {
+                        buffer = ByteBuffer.allocateDirect(recordSize);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.putInt(recordSize);
+            PayloadCodec.putString(buffer, record.id());
+            buffer.asFloatBuffer().put(vector);
+            buffer.position(buffer.position() + dimension * Float.BYTES);
+            PayloadCodec.write(buffer, record.payload());
+            count++;
+        }
+
+        /**
+         * Completes the snapshot: writes the pending records and the header, and moves the file to its final path.
+         *
+         * @return the amount of records written
+         * @throws IOException if the file cannot be written
+         */
+        public long commit() throws IOException {
+            try (channel) {
+                flush();
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                        .putInt(MAGIC).putInt(VERSION).putInt(dimension).putLong(count)
+                        .flip();
+                while (header.hasRemaining()) {
+                    channel.write(header, HEADER_SIZE - header.remaining());
+                }
+                channel.force(true);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return count;
+        }
+
+        /**
+         * Discards the snapshot, the previous file at the target path if any is left untouched.
+         *
+         * @throws IOException if the temporary file cannot be deleted
+         */
+        public void abort() throws IOException {
+            channel.close();
+            Files.deleteIfExists(temporary);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Reads the records of a snapshot file in the order they were written.
+     */
+    public static final class Reader implements Iterator<VectorRecord>, Closeable {
+        private final FileChannel channel;
+        private final long total;
+        private final int dimension;
+        private final long count;
+        private MappedByteBuffer window;
+        private long windowStart;
+        private long position = HEADER_SIZE;
+        private long read;
+
+        private Reader(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                this.total = channel.size();
+                if (total < HEADER_SIZE) {
+                    throw new IOException("The file " + path + " is not a snapshot");
+                }
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+                if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                    throw new IOException("The file " + path + " is not a snapshot");
+                }
+                this.dimension = header.getInt();
+                this.count = header.getLong();
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        public int dimension() {
+            return dimension;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return read < count;
+        }
+
+        @Override
+        public VectorRecord next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                if (window == null || position + Integer.BYTES > windowStart + window.capacity()
+                        || position + window.getInt((int) (position - windowStart))
+                        > windowStart + window.capacity()) {
+                    windowStart = position;
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart,
+                            Math.min(Math.max(WINDOW_SIZE, recordSizeAt(position)), total - windowStart));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            window.position((int) (position - windowStart));
+            int recordSize = window.getInt();
+            String id = PayloadCodec.getString(window);
+            var vector = new float[dimension];
+            window.asFloatBuffer().get(vector);
+            window.position(window.position() + dimension * Float.BYTES);
+            var record = new VectorRecord(id, vector, PayloadCodec.read(window));
+            position += recordSize;
+            read++;
+            return record;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        private int recordSizeAt(long offset) throws IOException {
+            return channel.map(FileChannel.MapMode.READ_ONLY, offset, Integer.BYTES).getInt();
+        }
+    }
+}
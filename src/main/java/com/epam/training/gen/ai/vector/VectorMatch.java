@@ -0,0 +1,14 @@
+package com.epam.training.gen.ai.vector;
+
+import java.util.Map;
+
+/**
+ * A record returned by a search.
+ *
+ * @param id      unique identifier
+ * @param score   cosine similarity with the query
+ * @param payload metadata stored next to the vector
+ * @param vector  the stored vector, null unless requested
+ */
+public record VectorMatch(String id, float score, Map<String, Object> payload, float[] vector) {
+}
@@ -0,0 +1,125 @@
+package com.epam.training.gen.ai.vector;
+
+import com.epam.training.gen.ai.configuration.QuantizationType;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Compact encodings of normalized vectors that approximate their dot product.
+ */
+abstract class VectorQuantizer {
+    private static final VarHandle FLOAT = MethodHandles.byteArrayViewVarHandle(float[].class,
+            ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class,
+            ByteOrder.LITTLE_ENDIAN);
+
+    protected final int dimension;
+
+    private VectorQuantizer(int dimension) {
+        this.dimension = dimension;
+    }
+
+    /**
+     * Creates the quantizer for the given type.
+     *
+     * @param type      the quantization type
+     * @param dimension the vector size
+     * @return the quantizer, null when the vectors are kept at full precision
+     */
+    static VectorQuantizer of(QuantizationType type, int dimension) {
+        if (type == null) {
+            return null;
+        }
+        return switch (type) {
+            case SCALAR -> new ScalarQuantizer(dimension);
+            case BINARY -> new BinaryQuantizer(dimension);
+            case NONE -> null;
+        };
+    }
+
+    /**
+     * Encodes a normalized vector.
+     *
+     * @param vector the vector values
+     * @return the encoded vector
+     */
+    abstract byte[] encode(float[] vector);
+
+    /**
+     * Approximates the dot product of two encoded vectors.
+     *
+     * @param a first encoded vector
+     * @param b second encoded vector
+     * @return the approximated similarity, higher is closer
+     */
+    abstract float score(byte[] a, byte[] b);
+
+    /**
+     * Symmetric int8 quantization: every vector is scaled by its largest absolute component, which is stored in
+     * the first four bytes of the code.
+     */
+    private static final class ScalarQuantizer extends VectorQuantizer {
+
+        ScalarQuantizer(int dimension) {
+            super(dimension);
+        }
+
+        @Override
+        byte[] encode(float[] vector) {
+            float max = 0;
+            for (float value : vector) {
+                max = Math.max(max, Math.abs(value));
+            }
+            float scale = max == 0 ? 0 : max / 127;
+            float inverse = max == 0 ? 0 : 1 / scale;
+
+            var code = new byte[Float.BYTES + dimension];
+            FLOAT.set(code, 0, scale);
+            for (int i = 0; i < dimension; i++) {
+                code[Float.BYTES + i] = (byte) Math.round(vector[i] * inverse);
+            }
+            return code;
+        }
+
+        @Override
+        float score(byte[] a, byte[] b) {
+            int sum = 0;
+            for (int i = Float.BYTES; i < a.length; i++) {
+                sum += a[i] * b[i];
+            }
+            return sum * (float) FLOAT.get(a, 0) * (float) FLOAT.get(b, 0);
+        }
+    }
+
+    /**
+     * Sign quantization: one bit per dimension, compared with the Hamming distance.
+     */
+    private static final class BinaryQuantizer extends VectorQuantizer {
+
+        BinaryQuantizer(int dimension) {
+            super(dimension);
+        }
+
+        @Override
+        byte[] encode(float[] vector) {
+            var code = new byte[(dimension + Long.SIZE - 1) / Long.SIZE * Long.BYTES];
+            for (int i = 0; i < dimension; i++) {
+                if (vector[i] > 0) {
+                    code[i >>> 3] |= (byte) (1 << (i & 7));
+                }
+            }
+            return code;
+        }
+
+        @Override
+        float score(byte[] a, byte[] b) {
+            int distance = 0;
+            for (int i = 0; i < a.length; i += Long.BYTES) {
+                distance += Long.bitCount((long) LONG.get(a, i) ^ (long) LONG.get(b, i));
+            }
+            return 1 - 2f * distance / dimension;
+        }
+    }
+}
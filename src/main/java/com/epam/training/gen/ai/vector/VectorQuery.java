@@ -0,0 +1,48 @@
+package com.epam.training.gen.ai.vector;
+
+import lombok.Builder;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Search parameters.
+ *
+ * @param vector         the query vector
+ * @param limit          maximum amount of matches
+ * @param offset         amount of best matches skipped, to read the matches one page at a time
+ * @param scoreThreshold minimum score of the matches, null to return all of them
+ * @param withPayload    whether the payload is returned
+ * @param payloadFields  the payload fields returned, null to return all of them
+ * @param withVector     whether the stored vector is returned
+ * @param hnswEf         size of the candidate list while searching, null to use the configured one
+ * @param exact          whether every vector is compared instead of walking the index
+ */
+@Builder(toBuilder = true)
+public record VectorQuery(float[] vector, int limit, int offset, Float scoreThreshold, boolean withPayload,
+                          List<String> payloadFields, boolean withVector, Integer hnswEf, boolean exact) {
+
+    /**
+     * Keeps the payload fields requested by this query, for the stores that cannot select them while searching.
+     *
+     * @param payload the whole payload
+     * @return the requested fields of the payload
+     */
+    public Map<String, Object> project(Map<String, Object> payload) {
+        if (!withPayload) {
+            return Map.of();
+        }
+        if (payloadFields == null) {
+            return payload;
+        }
+        var projected = new HashMap<String, Object>(payloadFields.size());
+        payloadFields.forEach(field -> {
+            Object value = payload.get(field);
+            if (value != null) {
+                projected.put(field, value);
+            }
+        });
+        return projected;
+    }
+}
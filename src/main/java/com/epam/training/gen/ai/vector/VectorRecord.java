@@ -0,0 +1,13 @@
+package com.epam.training.gen.ai.vector;
+
+import java.util.Map;
+
+/**
+ * A vector to store along with its payload.
+ *
+ * @param id      unique identifier (UUID)
+ * @param vector  the vector values
+ * @param payload metadata stored next to the vector, values are strings, numbers or booleans
+ */
+public record VectorRecord(String id, float[] vector, Map<String, Object> payload) {
+}
@@ -0,0 +1,75 @@
+package com.epam.training.gen.ai.vector;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Storage for the embeddings vectors and their payloads.
+ * <p>
+ * The implementation in use is selected with the {@code application.db.backend} property.
+ */
+public interface VectorStore {
+
+    /**
+     * Creates the collection that holds the vectors.
+     *
+     * @return a {@link Mono} that completes once the collection is created
+     */
+    Mono<Void> createCollection();
+
+    /**
+     * Applies the current tuning settings to the existing collection without dropping its data.
+     *
+     * @return a {@link Mono} that completes once the settings are applied
+     */
+    Mono<Void> reconcileCollection();
+
+    /**
+     * Inserts the records, replacing any record with the same id.
+     *
+     * @param records the records to store
+     * @return a {@link Mono} that completes once the records are stored
+     */
+    Mono<Void> upsert(List<VectorRecord> records);
+
+    /**
+     * Searches the records closest to the query vector by cosine similarity.
+     *
+     * @param query the search parameters
+     * @return a {@link Mono} with the matches sorted by descending score
+     */
+    Mono<List<VectorMatch>> search(VectorQuery query);
+
+    /**
+     * Runs several searches at once. By default the searches run concurrently, implementations backed by a remote
+     * service should send them within a single request.
+     *
+     * @param queries the search parameters of every search
+     * @return a {@link Mono} with the matches of every search, in the same order as the queries
+     */
+    default Mono<List<List<VectorMatch>>> searchBatch(List<VectorQuery> queries) {
+        return Flux.fromIterable(queries)
+                .flatMapSequential(this::search)
+                .collectList();
+    }
+
+    /**
+     * Reads the records with the given ids. Missing ids are skipped.
+     *
+     * @param ids        the ids to read
+     * @param withVector whether the vectors are read, the records have a null vector otherwise
+     * @return a {@link Mono} with the records found, in no particular order
+     */
+    Mono<List<VectorRecord>> retrieve(List<String> ids, boolean withVector);
+
+    /**
+     * Reads every record of the collection, one page at a time.
+     *
+     * @param pageSize   amount of records read per request
+     * @param withVector whether the vectors are read, the records have a null vector otherwise
+     * @return a {@link Flux} with all the records
+     */
+    Flux<VectorRecord> scroll(int pageSize, boolean withVector);
+}
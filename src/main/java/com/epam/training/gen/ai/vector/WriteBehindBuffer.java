@@ -0,0 +1,198 @@
+package com.epam.training.gen.ai.vector;
+
+import com.epam.training.gen.ai.configuration.ClientOpenAiProperties;
+import com.epam.training.gen.ai.configuration.WriteBehindProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Groups the upserts of concurrent requests into fewer and larger {@link VectorStore} upserts.
+ * <p>
+ * The records are buffered until {@code max-batch-size} records are waiting or the oldest one has waited for
+ * {@code flush-interval}. Records with the same id are coalesced, the last one wins. Only one batch is flushed at a
+ * time, so a newer version of a record is never overwritten by an older one. The buffer holds at most
+ * {@code capacity} records, counting the batch being flushed; the requests that do not fit wait, in arrival order,
+ * until a flush makes room. Every request completes once the batch holding its records is stored, and the buffered
+ * records are flushed on shutdown.
+ */
+@Slf4j
+@Component
+public class WriteBehindBuffer {
+    private final VectorStore vectorStore;
+    private final WriteBehindProperties properties;
+    private final Object lock = new Object();
+    private final Deque<Submission> waiting = new ArrayDeque<>();
+
+    private Batch current = new Batch();
+    private boolean flushing;
+    private boolean closed;
+    private int buffered;
+
+    public WriteBehindBuffer(VectorStore vectorStore, ClientOpenAiProperties clientOpenAiProperties) {
+        this.vectorStore = vectorStore;
+        this.properties = clientOpenAiProperties.application().db().writeBehind();
+    }
+
+    /**
+     * Adds the records to the buffer.
+     *
+     * @param records the records to store
+     * @return a {@link Mono} that completes once the records are stored, or fails if their batch failed
+     */
+    public Mono<Void> submit(List<VectorRecord> records) {
+        if (!properties.enabled()) {
+            return vectorStore.upsert(records);
+        }
+        if (records.isEmpty()) {
+            return Mono.empty();
+        }
+        return Mono.create(sink -> {
+            Batch ready;
+            synchronized (lock) {
+                if (closed) {
+                    sink.error(new IllegalStateException("The write-behind buffer is closed"));
+                    return;
+                }
+                if (!waiting.isEmpty() || !fits(records.size())) {
+                    waiting.add(new Submission(records, sink));
+                    return;
+                }
+                append(records, sink);
+                ready = takeReady();
+            }
+            flush(ready);
+        });
+    }
+
+    /**
+     * Flushes the buffered records and waits for them to be stored. Requests submitted afterwards fail.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        Batch ready;
+        synchronized (lock) {
+            closed = true;
+            ready = takeReady();
+        }
+        flush(ready);
+
+        long deadline = System.nanoTime() + properties.shutdownTimeout().toNanos();
+        synchronized (lock) {
+            long remaining;
+            while (buffered > 0 && (remaining = deadline - System.nanoTime()) > 0) {
+                TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+            }
+            if (buffered > 0) {
+                log.warn("{} buffered records were not stored before the shutdown", buffered + waitingRecords());
+            }
+        }
+    }
+
+    /**
+     * Whether a request fits in the buffer. A request larger than the capacity is accepted once the buffer is empty.
+     */
+    private boolean fits(int size) {
+        return buffered == 0 || buffered + size <= properties.capacity();
+    }
+
+    private void append(List<VectorRecord> records, MonoSink<Void> sink) {
+        Batch batch = current;
+        if (batch.records.isEmpty()) {
+            Schedulers.parallel().schedule(() -> onFlushInterval(batch),
+                    properties.flushInterval().toMillis(), TimeUnit.MILLISECONDS);
+        }
+        int before = batch.records.size();
+        records.forEach(record -> batch.records.put(record.id(), record));
+        buffered += batch.records.size() - before;
+        batch.sinks.add(sink);
+    }
+
+    private void onFlushInterval(Batch batch) {
+        Batch ready;
+        synchronized (lock) {
+            batch.due = true;
+            ready = takeReady();
+        }
+        flush(ready);
+    }
+
+    /**
+     * Swaps the current batch for an empty one if it has to be flushed and no other batch is being flushed.
+     *
+     * @return the batch to flush, null if there is none
+     */
+    private Batch takeReady() {
+        Batch batch = current;
+        if (flushing || batch.records.isEmpty()
+                || !(closed || batch.due || batch.records.size() >= properties.maxBatchSize())) {
+            return null;
+        }
+        current = new Batch();
+        flushing = true;
+        return batch;
+    }
+
+    private void flush(Batch batch) {
+        if (batch == null) {
+            return;
+        }
+        vectorStore.upsert(new ArrayList<>(batch.records.values()))
+                .subscribe(null, error -> onFlushed(batch, error), () -> onFlushed(batch, null));
+    }
+
+    private void onFlushed(Batch batch, Throwable error) {
+        if (error != null) {
+            log.warn("Write-behind flush of {} records failed: {}", batch.records.size(), error.getMessage());
+            batch.sinks.forEach(sink -> sink.error(error));
+        } else {
+            log.debug("Write-behind flush of {} records for {} requests", batch.records.size(), batch.sinks.size());
+            batch.sinks.forEach(MonoSink::success);
+        }
+
+        Batch ready;
+        synchronized (lock) {
+            flushing = false;
+            buffered -= batch.records.size();
+            while (!waiting.isEmpty() && fits(waiting.peek().records().size())) {
+                Submission submission = waiting.poll();
+                append(submission.records(), submission.sink());
+            }
+            ready = takeReady();
+            lock.notifyAll();
+        }
+        flush(ready);
+    }
+
+    private int waitingRecords() {
+        return waiting.stream().mapToInt(submission -> submission.records().size()).sum();
+    }
+
+    /**
+     * Records of a flush, keyed by id, with the requests to complete once they are stored.
+     */
+    private static final class Batch {
+        private final Map<String, VectorRecord> records = new LinkedHashMap<>();
+        private final List<MonoSink<Void>> sinks = new ArrayList<>();
+        private boolean due;
+    }
+
+    /**
+     * Request waiting for room in the buffer.
+     */
+    private record Submission(List<VectorRecord> records, MonoSink<Void> sink) {
+    }
+}